@@ -0,0 +1,274 @@
+package net.minecraftforge.common;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+
+import cpw.mods.fml.common.FMLLog;
+
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.ChunkCoordIntPair;
+import net.minecraft.world.World;
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.storage.IThreadedFileIO;
+import net.minecraft.world.storage.ThreadedFileIOBase;
+import net.minecraftforge.common.ForgeChunkManager.Ticket;
+
+/**
+ * Reports what the chunkloading tickets of each mod, and each player, are costing the server:
+ * how many chunks they force, how many entities and tile entities are in those chunks, and an
+ * estimate of the world tick time spent on them.
+ *
+ * The tick time is estimated from the world's average tick time in {@link MinecraftServer#worldTickTimes},
+ * split between the owners by their share of the entities and tile entities loaded in the world.
+ */
+public class ChunkLoadingTelemetry
+{
+    private static long reportInterval;
+    private static File reportFile;
+    private static long lastReport;
+
+    public static class TicketUsage
+    {
+        private final int dimension;
+        private final String modId;
+        private final String player;
+        private final Set<ChunkCoordIntPair> chunks = new HashSet<ChunkCoordIntPair>();
+        private int tickets;
+        private int entities;
+        private int tileEntities;
+        private long tickNanos;
+
+        private TicketUsage(int dimension, String modId, String player)
+        {
+            this.dimension = dimension;
+            this.modId = modId;
+            this.player = player;
+        }
+
+        public int getDimension()
+        {
+            return dimension;
+        }
+
+        public String getModId()
+        {
+            return modId;
+        }
+
+        /**
+         * @return The player the tickets are held for, or null for the mod's own tickets
+         */
+        public String getPlayer()
+        {
+            return player;
+        }
+
+        public int getTicketCount()
+        {
+            return tickets;
+        }
+
+        public int getForcedChunkCount()
+        {
+            return chunks.size();
+        }
+
+        public int getEntityCount()
+        {
+            return entities;
+        }
+
+        public int getTileEntityCount()
+        {
+            return tileEntities;
+        }
+
+        /**
+         * @return The estimated nanoseconds per tick spent on the entities and tile entities in the forced chunks
+         */
+        public long getEstimatedTickNanos()
+        {
+            return tickNanos;
+        }
+    }
+
+    /**
+     * Collects the usage of every owner of tickets in the world.
+     *
+     * @param world The world
+     * @return The usage, ordered by estimated tick time, highest first
+     */
+    @SuppressWarnings("unchecked")
+    public static List<TicketUsage> collect(World world)
+    {
+        Map<String, TicketUsage> usages = new LinkedHashMap<String, TicketUsage>();
+        int dimension = world.provider.dimensionId;
+        for (Ticket ticket : ForgeChunkManager.getTicketsFor(world))
+        {
+            String player = (ticket.isPlayerTicket() ? ticket.getPlayerName() : null);
+            String key = ticket.getModId() + (player != null ? ":" + player : "");
+            TicketUsage usage = usages.get(key);
+            if (usage == null)
+            {
+                usage = new TicketUsage(dimension, ticket.getModId(), player);
+                usages.put(key, usage);
+            }
+            usage.tickets++;
+            usage.chunks.addAll(ticket.getChunkList());
+        }
+
+        int worldLoad = world.loadedEntityList.size() + world.loadedTileEntityList.size();
+        long tickNanos = getAverageTickNanos(dimension);
+        for (TicketUsage usage : usages.values())
+        {
+            for (ChunkCoordIntPair pos : usage.chunks)
+            {
+                if (!world.getChunkProvider().chunkExists(pos.chunkXPos, pos.chunkZPos))
+                {
+                    continue;
+                }
+                Chunk chunk = world.getChunkFromChunkCoords(pos.chunkXPos, pos.chunkZPos);
+                for (List entities : chunk.entityLists)
+                {
+                    usage.entities += entities.size();
+                }
+                usage.tileEntities += chunk.chunkTileEntityMap.size();
+            }
+            if (worldLoad > 0)
+            {
+                usage.tickNanos = tickNanos * Math.min(usage.entities + usage.tileEntities, worldLoad) / worldLoad;
+            }
+        }
+
+        List<TicketUsage> ret = new ArrayList<TicketUsage>(usages.values());
+        Collections.sort(ret, new Comparator<TicketUsage>()
+        {
+            @Override
+            public int compare(TicketUsage o1, TicketUsage o2)
+            {
+                long a = o1.tickNanos;
+                long b = o2.tickNanos;
+                return (a < b ? 1 : (a == b ? o2.chunks.size() - o1.chunks.size() : -1));
+            }
+        });
+        return ret;
+    }
+
+    /**
+     * Collects the usage of every owner of tickets, in every loaded world.
+     */
+    public static List<TicketUsage> collectAll()
+    {
+        List<TicketUsage> ret = new ArrayList<TicketUsage>();
+        for (WorldServer world : DimensionManager.getWorlds())
+        {
+            ret.addAll(collect(world));
+        }
+        return ret;
+    }
+
+    private static long getAverageTickNanos(int dimension)
+    {
+        MinecraftServer server = MinecraftServer.getServer();
+        long[] times = (server != null ? server.worldTickTimes.get(dimension) : null);
+        if (times == null || times.length == 0)
+        {
+            return 0;
+        }
+        long total = 0;
+        for (long time : times)
+        {
+            total += time;
+        }
+        return total / times.length;
+    }
+
+    /**
+     * Writes a human readable report of the usage of every owner of tickets, in every loaded world.
+     *
+     * @param out The writer to print to
+     */
+    public static void writeReport(PrintWriter out)
+    {
+        out.println(String.format("%-5s %-24s %-16s %8s %8s %10s %10s %12s", "Dim", "Mod", "Player", "Tickets", "Chunks", "Entities", "Tiles", "Tick (ms)"));
+        for (TicketUsage usage : collectAll())
+        {
+            out.println(String.format("%-5d %-24s %-16s %8d %8d %10d %10d %12.3f",
+                    usage.dimension, usage.modId, (usage.player != null ? usage.player : "-"),
+                    usage.tickets, usage.chunks.size(), usage.entities, usage.tileEntities,
+                    usage.tickNanos / 1000000.0D));
+        }
+    }
+
+    static void configure(File file, int intervalSeconds)
+    {
+        reportFile = file;
+        reportInterval = intervalSeconds * 1000000000L;
+    }
+
+    /**
+     * Called every tick of the overworld, writes the periodic report once it is due.
+     * The report is collected on the server thread and written on the file IO thread.
+     */
+    static void tick()
+    {
+        if (reportInterval <= 0 || reportFile == null)
+        {
+            return;
+        }
+        long now = System.nanoTime();
+        if (lastReport == 0)
+        {
+            lastReport = now;
+        }
+        if (now - lastReport < reportInterval)
+        {
+            return;
+        }
+        lastReport = now;
+
+        StringWriter text = new StringWriter();
+        PrintWriter out = new PrintWriter(text);
+        writeReport(out);
+        out.close();
+        final String report = text.toString();
+        final File file = reportFile;
+        ThreadedFileIOBase.threadedIOInstance.queueIO(new IThreadedFileIO()
+        {
+            @Override
+            public boolean writeNextIO()
+            {
+                try
+                {
+                    FileWriter writer = new FileWriter(file);
+                    try
+                    {
+                        writer.write(report);
+                    }
+                    finally
+                    {
+                        writer.close();
+                    }
+                }
+                catch (IOException e)
+                {
+                    FMLLog.log(Level.WARNING, e, "Unable to write the chunk loading report to %s", file.getAbsolutePath());
+                }
+                return false;
+            }
+        });
+    }
+}
@@ -0,0 +1,206 @@
+package net.minecraftforge.common;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.world.ChunkPosition;
+import net.minecraft.world.chunk.Chunk;
+
+/**
+ * Indexes the tile entities in a chunk's chunkTileEntityMap by 16x16x16 section, so a range query only
+ * looks at the sections it overlaps. Sections fully inside the range are added without any bounds checks,
+ * and sections partly inside are either scanned or probed position by position, whichever is less work.
+ *
+ * The index is built from the chunk's chunkTileEntityMap by the first query, and from then on the chunk
+ * keeps it up to date as it sets, removes and cleans up tile entities. When the chunk unloads the index
+ * is dropped, and built again if the chunk is queried after being brought back from the dormant cache.
+ * The map itself is left alone, so a change made to it directly is only noticed when it changes the size
+ * of the map, which rebuilds the index.
+ */
+public class ChunkTileEntityIndex
+{
+    private static final int SECTIONS = 16;
+
+    private final Chunk chunk;
+    @SuppressWarnings("unchecked")
+    private final Map<ChunkPosition, TileEntity>[] sections = new Map[SECTIONS];
+    /**
+     * Tile entities outside the height of the sections, these are always bounds checked.
+     */
+    private final Map<ChunkPosition, TileEntity> outside = new HashMap<ChunkPosition, TileEntity>();
+    private int size;
+    private boolean built;
+
+    public ChunkTileEntityIndex(Chunk chunk)
+    {
+        this.chunk = chunk;
+    }
+
+    public void put(ChunkPosition pos, TileEntity entity)
+    {
+        if (!built)
+        {
+            return;
+        }
+        if (getSection(pos.y, true).put(pos, entity) == null)
+        {
+            size++;
+        }
+    }
+
+    public void remove(ChunkPosition pos)
+    {
+        if (!built)
+        {
+            return;
+        }
+        Map<ChunkPosition, TileEntity> section = getSection(pos.y, false);
+        if (section != null && section.remove(pos) != null)
+        {
+            size--;
+        }
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    private Map<ChunkPosition, TileEntity> getSection(int y, boolean create)
+    {
+        if (y < 0 || y >= SECTIONS << 4)
+        {
+            return outside;
+        }
+        Map<ChunkPosition, TileEntity> section = sections[y >> 4];
+        if (section == null && create)
+        {
+            section = new HashMap<ChunkPosition, TileEntity>();
+            sections[y >> 4] = section;
+        }
+        return section;
+    }
+
+    /**
+     * Drops the index, the next query builds it again from the chunk's chunkTileEntityMap.
+     */
+    public void clear()
+    {
+        for (int x = 0; x < SECTIONS; x++)
+        {
+            sections[x] = null;
+        }
+        outside.clear();
+        size = 0;
+        built = false;
+    }
+
+    /**
+     * Rebuilds the index from the chunk's chunkTileEntityMap.
+     */
+    @SuppressWarnings("unchecked")
+    public void rebuild()
+    {
+        clear();
+        built = true;
+        for (Entry<ChunkPosition, TileEntity> entry : ((Map<ChunkPosition, TileEntity>)chunk.chunkTileEntityMap).entrySet())
+        {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Adds the valid tile entities of the chunk that are inside the range to the list.
+     * The bounds are world coordinates, and inclusive.
+     */
+    public void getTileEntitiesInRange(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, List<TileEntity> list)
+    {
+        if (!built || size != chunk.chunkTileEntityMap.size())
+        {
+            rebuild();
+        }
+        if (size == 0)
+        {
+            return;
+        }
+
+        int x0 = Math.max(minX - (chunk.xPosition << 4), 0);
+        int x1 = Math.min(maxX - (chunk.xPosition << 4), 15);
+        int z0 = Math.max(minZ - (chunk.zPosition << 4), 0);
+        int z1 = Math.min(maxZ - (chunk.zPosition << 4), 15);
+        if (x0 > x1 || z0 > z1 || minY > maxY)
+        {
+            return;
+        }
+
+        if (!outside.isEmpty())
+        {
+            scan(outside, x0, minY, z0, x1, maxY, z1, list);
+        }
+
+        int y0 = Math.max(minY, 0);
+        int y1 = Math.min(maxY, (SECTIONS << 4) - 1);
+        for (int s = y0 >> 4; s <= y1 >> 4 && y0 <= y1; s++)
+        {
+            Map<ChunkPosition, TileEntity> section = sections[s];
+            if (section == null || section.isEmpty())
+            {
+                continue;
+            }
+            int sy0 = Math.max(y0, s << 4);
+            int sy1 = Math.min(y1, (s << 4) + 15);
+            int volume = (x1 - x0 + 1) * (z1 - z0 + 1) * (sy1 - sy0 + 1);
+            if (volume == 16 * 16 * 16)
+            {
+                for (TileEntity entity : section.values())
+                {
+                    if (!entity.isInvalid())
+                    {
+                        list.add(entity);
+                    }
+                }
+            }
+            else if (volume < section.size())
+            {
+                probe(section, x0, sy0, z0, x1, sy1, z1, list);
+            }
+            else
+            {
+                scan(section, x0, sy0, z0, x1, sy1, z1, list);
+            }
+        }
+    }
+
+    private static void scan(Map<ChunkPosition, TileEntity> section, int x0, int y0, int z0, int x1, int y1, int z1, List<TileEntity> list)
+    {
+        for (Entry<ChunkPosition, TileEntity> entry : section.entrySet())
+        {
+            ChunkPosition pos = entry.getKey();
+            if (pos.x >= x0 && pos.y >= y0 && pos.z >= z0 && pos.x <= x1 && pos.y <= y1 && pos.z <= z1 && !entry.getValue().isInvalid())
+            {
+                list.add(entry.getValue());
+            }
+        }
+    }
+
+    private static void probe(Map<ChunkPosition, TileEntity> section, int x0, int y0, int z0, int x1, int y1, int z1, List<TileEntity> list)
+    {
+        for (int y = y0; y <= y1; y++)
+        {
+            for (int z = z0; z <= z1; z++)
+            {
+                for (int x = x0; x <= x1; x++)
+                {
+                    TileEntity entity = section.get(new ChunkPosition(x, y, z));
+                    if (entity != null && !entity.isInvalid())
+                    {
+                        list.add(entity);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package net.minecraftforge.common;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.ChunkCoordIntPair;
+import net.minecraft.world.World;
+
+/**
+ * Picks the chunks a ChunkProviderServer unloads each tick from its unload queue.
+ *
+ * Chunks are unloaded in batches grouped by region file, in the order the region file stores them,
+ * so the saves they queue write to the same file one after another. Forced chunks are dropped from
+ * the queue as they come up, instead of every forced chunk being removed from the queue every tick.
+ *
+ * The number unloaded each tick is not fixed. At least the configured minimum is unloaded, by default the
+ * 100 vanilla unloads, after that chunks are unloaded until the time left in the server's 50ms tick, or
+ * the configured budget, is used. A lagging server therefore still unloads as many chunks as vanilla.
+ */
+public class ChunkUnloadScheduler
+{
+    private static final long TICK_NANOS = 50000000L;
+    private static final int REGION_OFFSET = 1 << 26;
+    private static final long REGION_MASK = (1L << 27) - 1;
+
+    private static int minimumPerTick = 100;
+    private static long budgetNanos = 5000000L;
+
+    private Set<Long> queue;
+    private long[] batch = new long[0];
+    private int batchSize;
+    private int batchIndex;
+
+    private World world;
+    private long deadline;
+    private int unloadedThisTick;
+
+    private int maxQueueLength;
+    private int lastUnloaded;
+    private long lastBudget;
+    private long totalUnloaded;
+    private long forcedSkipped;
+
+    static void configure(int minimum, int budgetMillis)
+    {
+        minimumPerTick = Math.max(minimum, 1);
+        budgetNanos = Math.max(budgetMillis, 0) * 1000000L;
+    }
+
+    /**
+     * Starts the unloading for this tick. Builds a new batch from the queue if the last one is done.
+     *
+     * @param world The world the chunks belong to
+     * @param queue The provider's unload queue, chunks are removed from it by the provider as they are unloaded
+     */
+    public void beginTick(World world, Set<Long> queue)
+    {
+        this.world = world;
+        this.queue = queue;
+        maxQueueLength = Math.max(maxQueueLength, queue.size());
+        lastBudget = getTickBudget();
+        deadline = System.nanoTime() + lastBudget;
+        unloadedThisTick = 0;
+
+        if (batchIndex >= batchSize)
+        {
+            buildBatch();
+        }
+    }
+
+    /**
+     * @return The next chunk to unload, or null if there is nothing left to unload this tick
+     */
+    public Long next()
+    {
+        if (unloadedThisTick >= minimumPerTick && System.nanoTime() >= deadline)
+        {
+            return null;
+        }
+        while (true)
+        {
+            if (batchIndex >= batchSize)
+            {
+                // Chunks queued since the batch was built wait for the next tick
+                return null;
+            }
+            long key = decode(batch[batchIndex++]);
+            Long ret = key;
+            if (!queue.contains(ret))
+            {
+                // Loaded again since the batch was built
+                continue;
+            }
+            if (ForgeChunkManager.isChunkForced(world, (int)key, (int)(key >>> 32)))
+            {
+                queue.remove(ret);
+                forcedSkipped++;
+                continue;
+            }
+            unloadedThisTick++;
+            lastUnloaded = unloadedThisTick;
+            totalUnloaded++;
+            return ret;
+        }
+    }
+
+    private void buildBatch()
+    {
+        if (batch.length < queue.size())
+        {
+            batch = new long[queue.size()];
+        }
+        batchSize = 0;
+        batchIndex = 0;
+        for (Long key : queue)
+        {
+            batch[batchSize++] = encode(key);
+        }
+        Arrays.sort(batch, 0, batchSize);
+    }
+
+    /**
+     * Orders the chunks by region file first, and then by their position in the region file.
+     *
+     * The region Z is kept signed in the top 27 bits, so it also orders the signed keys. The region X
+     * is offset to be positive, so it does not carry into the region Z.
+     */
+    static long encode(long key)
+    {
+        int x = (int)key;
+        int z = (int)(key >>> 32);
+        long regionX = (x >> 5) + REGION_OFFSET;
+        long regionZ = z >> 5;
+        return (regionZ << 37) | (regionX << 10) | ((z & 31) << 5) | (x & 31);
+    }
+
+    static long decode(long sortKey)
+    {
+        int x = ((int)((sortKey >>> 10) & REGION_MASK) - REGION_OFFSET) << 5 | (int)(sortKey & 31);
+        int z = ((int)(sortKey >> 37)) << 5 | (int)((sortKey >>> 5) & 31);
+        return ChunkCoordIntPair.chunkXZ2Int(x, z);
+    }
+
+    private static long getTickBudget()
+    {
+        MinecraftServer server = MinecraftServer.getServer();
+        if (server == null)
+        {
+            return budgetNanos;
+        }
+        long total = 0;
+        for (long time : server.tickTimeArray)
+        {
+            total += time;
+        }
+        long remaining = TICK_NANOS - total / server.tickTimeArray.length;
+        return Math.max(Math.min(remaining, budgetNanos), 0);
+    }
+
+    /**
+     * @return The number of chunks waiting to be unloaded, including forced chunks that have not been dropped yet
+     */
+    public int getQueueLength()
+    {
+        return (queue == null ? 0 : queue.size());
+    }
+
+    /**
+     * @return The largest number of chunks that have been waiting to be unloaded at the start of a tick
+     */
+    public int getMaxQueueLength()
+    {
+        return maxQueueLength;
+    }
+
+    /**
+     * @return The number of chunks left in the current region ordered batch
+     */
+    public int getBatchRemaining()
+    {
+        return batchSize - batchIndex;
+    }
+
+    /**
+     * @return The number of chunks unloaded in the last tick that unloaded any
+     */
+    public int getLastUnloadCount()
+    {
+        return lastUnloaded;
+    }
+
+    /**
+     * @return The time, in nanoseconds, the last tick was allowed to spend past the minimum
+     */
+    public long getLastBudgetNanos()
+    {
+        return lastBudget;
+    }
+
+    public long getTotalUnloaded()
+    {
+        return totalUnloaded;
+    }
+
+    /**
+     * @return The number of forced chunks dropped from the queue instead of being unloaded
+     */
+    public long getForcedSkipped()
+    {
+        return forcedSkipped;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("queue %d, max %d, batch %d, last %d, budget %.3f ms, unloaded %d, forced skipped %d",
+                getQueueLength(), maxQueueLength, getBatchRemaining(), lastUnloaded, lastBudget / 1000000.0D, totalUnloaded, forcedSkipped);
+    }
+}
@@ -0,0 +1,308 @@
+package net.minecraftforge.common;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+
+/**
+ * Keeps the recently unloaded chunks of a single world, so they can be brought back
+ * without reading them from disk. See {@link ForgeChunkManager#fetchDormantChunk(long, World)}.
+ *
+ * The cache is bounded by a chunk count, by the estimated number of bytes the chunks retain, or both.
+ * When it is full the {@link EvictionPolicy} picks which chunk to drop from the least recently
+ * used ones. The hit, miss and eviction counts are kept per cache, and so per dimension.
+ */
+public class DormantChunkCache
+{
+    /**
+     * Decides which chunk is evicted when the cache is full.
+     */
+    public interface EvictionPolicy
+    {
+        /**
+         * @param world The world the cache belongs to
+         * @param candidates The least recently used chunks of the cache, oldest first
+         * @return The index of the candidate to evict
+         */
+        public int selectVictim(World world, List<CachedChunk> candidates);
+    }
+
+    /**
+     * Evicts the least recently used chunk.
+     */
+    public static final EvictionPolicy LRU = new EvictionPolicy()
+    {
+        @Override
+        public int selectVictim(World world, List<CachedChunk> candidates)
+        {
+            return 0;
+        }
+    };
+
+    /**
+     * Evicts the least frequently fetched chunk, with the fetch counts weighted down
+     * by the distance of the chunk to the closest player in the world.
+     */
+    public static final EvictionPolicy PLAYER_PROXIMITY = new EvictionPolicy()
+    {
+        @Override
+        public int selectVictim(World world, List<CachedChunk> candidates)
+        {
+            int victim = 0;
+            double lowest = Double.MAX_VALUE;
+            for (int x = 0; x < candidates.size(); x++)
+            {
+                CachedChunk cached = candidates.get(x);
+                double distance = Math.sqrt(getClosestPlayerDistanceSq(world, cached.chunk));
+                double score = (cached.hits + 1) / (1.0D + distance);
+                if (score < lowest)
+                {
+                    lowest = score;
+                    victim = x;
+                }
+            }
+            return victim;
+        }
+
+        private double getClosestPlayerDistanceSq(World world, Chunk chunk)
+        {
+            double closest = Double.MAX_VALUE;
+            for (Object obj : world.playerEntities)
+            {
+                EntityPlayer player = (EntityPlayer)obj;
+                double dx = (player.posX / 16.0D) - chunk.xPosition;
+                double dz = (player.posZ / 16.0D) - chunk.zPosition;
+                closest = Math.min(closest, dx * dx + dz * dz);
+            }
+            return closest;
+        }
+    };
+
+    /**
+     * Rough sizes used to estimate how much memory a chunk retains, in bytes.
+     * The height, precipitation and biome maps, and the object headers of the chunk.
+     */
+    private static final int CHUNK_BASE_BYTES = 3 * 1024;
+    private static final int SECTION_BASE_BYTES = 128;
+    private static final int ENTITY_BYTES = 1024;
+    private static final int TILE_ENTITY_BYTES = 512;
+
+    /**
+     * The number of least recently used chunks offered to the eviction policy.
+     */
+    private static final int EVICTION_CANDIDATES = 16;
+
+    public static class CachedChunk
+    {
+        private final long coords;
+        private final Chunk chunk;
+        private final long bytes;
+        private int hits;
+
+        private CachedChunk(long coords, Chunk chunk, long bytes)
+        {
+            this.coords = coords;
+            this.chunk = chunk;
+            this.bytes = bytes;
+        }
+
+        public long getCoords()
+        {
+            return coords;
+        }
+
+        public Chunk getChunk()
+        {
+            return chunk;
+        }
+
+        /**
+         * @return The estimated number of bytes retained by the chunk
+         */
+        public long getEstimatedBytes()
+        {
+            return bytes;
+        }
+
+        /**
+         * @return The number of times the chunk was fetched from a dormant cache
+         */
+        public int getHits()
+        {
+            return hits;
+        }
+    }
+
+    private final World world;
+    private final LinkedHashMap<Long, CachedChunk> chunks = new LinkedHashMap<Long, CachedChunk>(16, 0.75F, true);
+    private final int maxChunks;
+    private final long maxBytes;
+    private EvictionPolicy policy;
+    private long bytes;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * @param world The world
+     * @param maxChunks The maximum number of chunks, 0 for no limit
+     * @param maxBytes The maximum estimated number of bytes, 0 for no limit
+     * @param policy The eviction policy
+     */
+    public DormantChunkCache(World world, int maxChunks, long maxBytes, EvictionPolicy policy)
+    {
+        this.world = world;
+        this.maxChunks = maxChunks;
+        this.maxBytes = maxBytes;
+        this.policy = policy;
+    }
+
+    public synchronized void put(long coords, Chunk chunk)
+    {
+        CachedChunk cached = new CachedChunk(coords, chunk, estimateSize(chunk));
+        if (maxBytes > 0 && cached.bytes > maxBytes)
+        {
+            return;
+        }
+        CachedChunk old = chunks.put(coords, cached);
+        if (old != null)
+        {
+            cached.hits = old.hits;
+            bytes -= old.bytes;
+        }
+        bytes += cached.bytes;
+
+        while ((maxChunks > 0 && chunks.size() > maxChunks) || (maxBytes > 0 && bytes > maxBytes))
+        {
+            evict();
+        }
+    }
+
+    /**
+     * Returns the cached chunk. It stays cached, and is replaced when it is next unloaded,
+     * so its hit count carries over.
+     *
+     * @return The chunk, or null if it is not cached
+     */
+    public synchronized Chunk fetch(long coords)
+    {
+        CachedChunk cached = chunks.get(coords);
+        if (cached == null)
+        {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        cached.hits++;
+        return cached.chunk;
+    }
+
+    /**
+     * Determines if the chunk is cached, without counting it as a hit or miss.
+     */
+    public synchronized boolean contains(long coords)
+    {
+        return chunks.containsKey(coords);
+    }
+
+    private void evict()
+    {
+        List<CachedChunk> candidates = new ArrayList<CachedChunk>(EVICTION_CANDIDATES);
+        Iterator<CachedChunk> itr = chunks.values().iterator();
+        while (itr.hasNext() && candidates.size() < EVICTION_CANDIDATES)
+        {
+            candidates.add(itr.next());
+        }
+        int victim = policy.selectVictim(world, candidates);
+        if (victim < 0 || victim >= candidates.size())
+        {
+            victim = 0;
+        }
+        CachedChunk cached = candidates.get(victim);
+        chunks.remove(cached.coords);
+        bytes -= cached.bytes;
+        evictionCount++;
+    }
+
+    /**
+     * Estimates the memory retained by the chunk, its block storage, entities and tile entities.
+     */
+    @SuppressWarnings("unchecked")
+    public static long estimateSize(Chunk chunk)
+    {
+        long size = CHUNK_BASE_BYTES;
+        for (ExtendedBlockStorage storage : chunk.getBlockStorageArray())
+        {
+            if (storage == null)
+            {
+                continue;
+            }
+            size += SECTION_BASE_BYTES;
+            size += storage.getBlockLSBArray().length;
+            size += storage.getMetadataArray().data.length;
+            size += storage.getBlocklightArray().data.length;
+            if (storage.getBlockMSBArray() != null)
+            {
+                size += storage.getBlockMSBArray().data.length;
+            }
+            if (storage.getSkylightArray() != null)
+            {
+                size += storage.getSkylightArray().data.length;
+            }
+        }
+        for (List<Entity> entities : chunk.entityLists)
+        {
+            size += entities.size() * ENTITY_BYTES;
+        }
+        size += chunk.chunkTileEntityMap.size() * TILE_ENTITY_BYTES;
+        return size;
+    }
+
+    public World getWorld()
+    {
+        return world;
+    }
+
+    public synchronized void setEvictionPolicy(EvictionPolicy policy)
+    {
+        this.policy = policy;
+    }
+
+    public synchronized int getSize()
+    {
+        return chunks.size();
+    }
+
+    public synchronized long getEstimatedBytes()
+    {
+        return bytes;
+    }
+
+    public synchronized long getHitCount()
+    {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount()
+    {
+        return missCount;
+    }
+
+    public synchronized long getEvictionCount()
+    {
+        return evictionCount;
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        return String.format("Dim %d: %d chunks, %d KB, %d hits, %d misses, %d evictions", world.provider.dimensionId, chunks.size(), bytes / 1024, hitCount, missCount, evictionCount);
+    }
+}
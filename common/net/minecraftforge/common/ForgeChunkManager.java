@@ -1,10 +1,18 @@
 package net.minecraftforge.common;
 
+import java.io.BufferedOutputStream;
 import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -15,8 +23,6 @@ import java.util.logging.Level;
 
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.BiMap;
 import com.google.common.collect.ForwardingSet;
@@ -26,7 +32,6 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
-import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.MapMaker;
@@ -44,16 +49,23 @@ import cpw.mods.fml.common.ModContainer;
 
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.IChunkProvider;
 import net.minecraft.world.ChunkCoordIntPair;
 import net.minecraft.nbt.CompressedStreamTools;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.util.ChunkCoordinates;
 import net.minecraft.util.MathHelper;
 import net.minecraft.nbt.NBTBase;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.nbt.NBTTagList;
 import net.minecraft.world.World;
 import net.minecraft.world.WorldServer;
+import net.minecraft.world.chunk.storage.AnvilChunkLoader;
+import net.minecraft.world.chunk.storage.RegionFileCache;
+import net.minecraft.world.gen.ChunkProviderServer;
+import net.minecraft.world.storage.IThreadedFileIO;
+import net.minecraft.world.storage.ThreadedFileIOBase;
 import net.minecraftforge.common.ForgeChunkManager.Ticket;
 import net.minecraftforge.event.Event;
 
@@ -88,15 +100,35 @@ public class ForgeChunkManager
 
     private static Map<String, LoadingCallback> callbacks = Maps.newHashMap();
 
-    private static Map<World, ImmutableSetMultimap<ChunkCoordIntPair,Ticket>> forcedChunks = new MapMaker().weakKeys().makeMap();
+    private static Map<World, ForcedChunkIndex> forcedChunks = new MapMaker().weakKeys().makeMap();
     private static BiMap<UUID,Ticket> pendingEntities = HashBiMap.create();
 
-    private static Map<World,Cache<Long, Chunk>> dormantChunkCache = new MapMaker().weakKeys().makeMap();
+    private static Map<World, DormantChunkCache> dormantChunkCache = new MapMaker().weakKeys().makeMap();
+
+    private static Map<File, ForcedChunkSaver> forcedChunkSavers = new MapMaker().makeMap();
+
+    private static boolean entityPrefetch;
+    private static int entityPrefetchLookahead;
+    private static int entityPrefetchBudget;
+    private static int entityPrefetchTotalBudget;
+    private static int prefetchBudgetLeft;
+    private static Map<World, LinkedHashMap<Long, Long>> prefetchReleases = new MapMaker().weakKeys().makeMap();
+    private static long prefetchedChunkCount;
+    private static long prefetchStallsAvoided;
+    private static long prefetchStalls;
+
+    private static boolean stagedChunkLoading;
+    private static int stagedChunkLoadingBudget;
+    private static Map<World, LinkedList<ChunkCoordIntPair>> stagingQueues = new MapMaker().weakKeys().makeMap();
+
+    private static Map<World, ChunkUnloadScheduler> unloadSchedulers = new MapMaker().weakKeys().makeMap();
 
     private static File cfgFile;
     private static Configuration config;
     private static int playerTicketLength;
     private static int dormantChunkCacheSize;
+    private static int dormantChunkCacheMemory;
+    private static DormantChunkCache.EvictionPolicy dormantChunkEvictionPolicy = DormantChunkCache.LRU;
 
     private static Set<String> warnedMods = Sets.newHashSet();
     /**
@@ -195,6 +227,7 @@ public class ForgeChunkManager
         private int entityChunkZ;
         private Entity entity;
         private String player;
+        private LinkedHashSet<Long> prefetchedChunks;
 
         Ticket(String modId, Type type, World world)
         {
@@ -361,6 +394,435 @@ public class ForgeChunkManager
         }
     }
 
+    /**
+     * Posted once for a whole batch of chunks forced by {@link ForgeChunkManager#forceChunks(Ticket, Collection)}.
+     */
+    public static class ForceChunksEvent extends Event {
+        public final Ticket ticket;
+        public final ImmutableList<ChunkCoordIntPair> locations;
+
+        public ForceChunksEvent(Ticket ticket, ImmutableList<ChunkCoordIntPair> locations)
+        {
+            this.ticket = ticket;
+            this.locations = locations;
+        }
+    }
+
+    /**
+     * Posted once for a whole batch of chunks unforced by {@link ForgeChunkManager#unforceChunks(Ticket, Collection)}.
+     */
+    public static class UnforceChunksEvent extends Event {
+        public final Ticket ticket;
+        public final ImmutableList<ChunkCoordIntPair> locations;
+
+        public UnforceChunksEvent(Ticket ticket, ImmutableList<ChunkCoordIntPair> locations)
+        {
+            this.ticket = ticket;
+            this.locations = locations;
+        }
+    }
+
+    /**
+     * The forced chunks of a single world and the tickets forcing them, keyed by the packed chunk coordinates.
+     *
+     * Forcing and unforcing a chunk only update the index. The immutable multimap handed out by
+     * {@link ForgeChunkManager#getPersistentChunksFor(World)} is built the first time it is requested
+     * after a change, and then shared until the next one, so a batch of changes only copies it once.
+     *
+     * The keys are also kept in a open addressing set of primitive longs, so the world tick can
+     * check if a chunk is forced without allocating anything, see {@link ForgeChunkManager#isChunkForced(World, int, int)}.
+     */
+    private static class ForcedChunkIndex
+    {
+        private final LinkedHashMap<Long, ForcedChunk> chunks = new LinkedHashMap<Long, ForcedChunk>();
+        private final ForcedChunkSet keys = new ForcedChunkSet();
+        private volatile ImmutableSetMultimap<ChunkCoordIntPair, Ticket> snapshot = ImmutableSetMultimap.<ChunkCoordIntPair,Ticket>of();
+
+        private static class ForcedChunk
+        {
+            private final ChunkCoordIntPair location;
+            private final LinkedHashSet<Ticket> tickets = new LinkedHashSet<Ticket>();
+
+            private ForcedChunk(ChunkCoordIntPair location)
+            {
+                this.location = location;
+            }
+        }
+
+        private void add(ChunkCoordIntPair chunk, Ticket ticket)
+        {
+            Long key = ChunkCoordIntPair.chunkXZ2Int(chunk.chunkXPos, chunk.chunkZPos);
+            ForcedChunk forced = chunks.get(key);
+            if (forced == null)
+            {
+                forced = new ForcedChunk(chunk);
+                chunks.put(key, forced);
+                keys.add(key);
+            }
+            if (forced.tickets.add(ticket))
+            {
+                snapshot = null;
+            }
+        }
+
+        private void remove(ChunkCoordIntPair chunk, Ticket ticket)
+        {
+            Long key = ChunkCoordIntPair.chunkXZ2Int(chunk.chunkXPos, chunk.chunkZPos);
+            ForcedChunk forced = chunks.get(key);
+            if (forced != null && forced.tickets.remove(ticket))
+            {
+                if (forced.tickets.isEmpty())
+                {
+                    chunks.remove(key);
+                    keys.remove(key);
+                }
+                snapshot = null;
+            }
+        }
+
+        private boolean contains(int chunkX, int chunkZ)
+        {
+            return keys.contains(ChunkCoordIntPair.chunkXZ2Int(chunkX, chunkZ));
+        }
+
+        private ImmutableSetMultimap<ChunkCoordIntPair, Ticket> getSnapshot()
+        {
+            ImmutableSetMultimap<ChunkCoordIntPair, Ticket> ret = snapshot;
+            if (ret == null)
+            {
+                ImmutableSetMultimap.Builder<ChunkCoordIntPair, Ticket> builder = ImmutableSetMultimap.<ChunkCoordIntPair,Ticket>builder();
+                for (ForcedChunk forced : chunks.values())
+                {
+                    builder.putAll(forced.location, forced.tickets);
+                }
+                ret = builder.build();
+                snapshot = ret;
+            }
+            return ret;
+        }
+    }
+
+    /**
+     * A set of packed chunk coordinates, using linear probing in a power of two table.
+     * Removal shifts the following entries of the probe run back, so there are no tombstones.
+     */
+    static class ForcedChunkSet
+    {
+        private long[] table = new long[16];
+        private boolean[] used = new boolean[16];
+        private int size;
+
+        static int hash(long key)
+        {
+            key ^= key >>> 33;
+            key *= 0xff51afd7ed558ccdL;
+            key ^= key >>> 33;
+            return (int)key;
+        }
+
+        boolean contains(long key)
+        {
+            long[] table = this.table;
+            boolean[] used = this.used;
+            int mask = table.length - 1;
+            for (int x = hash(key) & mask; used[x]; x = (x + 1) & mask)
+            {
+                if (table[x] == key)
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean add(long key)
+        {
+            int mask = table.length - 1;
+            int x = hash(key) & mask;
+            for (; used[x]; x = (x + 1) & mask)
+            {
+                if (table[x] == key)
+                {
+                    return false;
+                }
+            }
+            table[x] = key;
+            used[x] = true;
+            if (++size > (table.length >> 1))
+            {
+                rehash(table.length << 1);
+            }
+            return true;
+        }
+
+        boolean remove(long key)
+        {
+            int mask = table.length - 1;
+            int x = hash(key) & mask;
+            for (; used[x]; x = (x + 1) & mask)
+            {
+                if (table[x] == key)
+                {
+                    break;
+                }
+            }
+            if (!used[x])
+            {
+                return false;
+            }
+
+            // Shift back any following entry whose ideal slot is not between the hole and itself
+            int hole = x;
+            for (x = (x + 1) & mask; used[x]; x = (x + 1) & mask)
+            {
+                int ideal = hash(table[x]) & mask;
+                if (((x - ideal) & mask) >= ((x - hole) & mask))
+                {
+                    table[hole] = table[x];
+                    hole = x;
+                }
+            }
+            used[hole] = false;
+            size--;
+            return true;
+        }
+
+        int size()
+        {
+            return size;
+        }
+
+        private void rehash(int capacity)
+        {
+            long[] oldTable = table;
+            boolean[] oldUsed = used;
+            table = new long[capacity];
+            used = new boolean[capacity];
+            int mask = capacity - 1;
+            for (int y = 0; y < oldTable.length; y++)
+            {
+                if (oldUsed[y])
+                {
+                    int x = hash(oldTable[y]) & mask;
+                    while (used[x])
+                    {
+                        x = (x + 1) & mask;
+                    }
+                    table[x] = oldTable[y];
+                    used[x] = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * The values of a ticket that are saved to forcedchunks.dat, copied on the server thread so
+     * the NBT can be built on the file IO thread.
+     */
+    private static class TicketSnapshot
+    {
+        private final byte type;
+        private final byte depth;
+        private final String modId;
+        private final String player;
+        private final NBTTagCompound modData;
+        private final boolean entity;
+        private final int chunkX;
+        private final int chunkZ;
+        private final long persistentIDMSB;
+        private final long persistentIDLSB;
+
+        private TicketSnapshot(Ticket tick)
+        {
+            type = (byte) tick.ticketType.ordinal();
+            depth = (byte) tick.maxDepth;
+            modId = (tick.isPlayerTicket() ? tick.modId : null);
+            player = (tick.isPlayerTicket() ? tick.player : null);
+            // Copied, as the mod may change it before the IO thread writes it
+            modData = (tick.modData == null ? null : (NBTTagCompound) tick.modData.copy());
+            entity = (tick.ticketType == Type.ENTITY);
+            if (entity)
+            {
+                chunkX = MathHelper.floor_double(tick.entity.chunkCoordX);
+                chunkZ = MathHelper.floor_double(tick.entity.chunkCoordZ);
+                persistentIDMSB = tick.entity.getPersistentID().getMostSignificantBits();
+                persistentIDLSB = tick.entity.getPersistentID().getLeastSignificantBits();
+            }
+            else
+            {
+                chunkX = chunkZ = 0;
+                persistentIDMSB = persistentIDLSB = 0;
+            }
+        }
+
+        private NBTTagCompound writeToNBT()
+        {
+            NBTTagCompound ticket = new NBTTagCompound();
+            ticket.setByte("Type", type);
+            ticket.setByte("ChunkListDepth", depth);
+            if (player != null)
+            {
+                ticket.setString("ModId", modId);
+                ticket.setString("Player", player);
+            }
+            if (modData != null)
+            {
+                ticket.setCompoundTag("ModData", modData);
+            }
+            if (entity)
+            {
+                ticket.setInteger("chunkX", chunkX);
+                ticket.setInteger("chunkZ", chunkZ);
+                ticket.setLong("PersistentIDMSB", persistentIDMSB);
+                ticket.setLong("PersistentIDLSB", persistentIDLSB);
+            }
+            return ticket;
+        }
+    }
+
+    /**
+     * Writes the ticket data of a world to forcedchunks.dat on the shared file IO thread, so
+     * the world save only has to take a snapshot of the tickets.
+     *
+     * Only the latest snapshot is kept, if the world is saved again before the IO thread gets to it
+     * the older one is never written. The data is first written to a temporary file which then replaces
+     * forcedchunks.dat, so a crash at any point leaves a complete copy of either the old or the new data.
+     *
+     * Once the world is unloaded the saver removes itself from forcedChunkSavers after its last write.
+     */
+    private static class ForcedChunkSaver implements IThreadedFileIO
+    {
+        private final File file;
+        private final File tempFile;
+        private final Object writeLock = new Object();
+        private Map<String, List<TicketSnapshot>> pending;
+        private boolean released;
+
+        private ForcedChunkSaver(File file)
+        {
+            this.file = file;
+            this.tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        }
+
+        /**
+         * @return If the saver needs to be queued, because no snapshot was already waiting
+         */
+        private synchronized boolean setPending(Map<String, List<TicketSnapshot>> data)
+        {
+            boolean queue = (pending == null);
+            pending = data;
+            released = false;
+            return queue;
+        }
+
+        private synchronized Map<String, List<TicketSnapshot>> takePending()
+        {
+            Map<String, List<TicketSnapshot>> ret = pending;
+            pending = null;
+            return ret;
+        }
+
+        /**
+         * Called when the world is unloaded, the saver is removed now if it has nothing left to write,
+         * otherwise once the IO thread has written it.
+         */
+        private void release()
+        {
+            synchronized (forcedChunkSavers)
+            {
+                synchronized (this)
+                {
+                    released = true;
+                    if (pending == null)
+                    {
+                        forcedChunkSavers.remove(file);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public boolean writeNextIO()
+        {
+            write();
+            synchronized (forcedChunkSavers)
+            {
+                synchronized (this)
+                {
+                    if (released && pending == null)
+                    {
+                        forcedChunkSavers.remove(file);
+                    }
+                }
+            }
+            return false;
+        }
+
+        private void write()
+        {
+            synchronized (writeLock)
+            {
+                Map<String, List<TicketSnapshot>> snapshot = takePending();
+                if (snapshot == null)
+                {
+                    return;
+                }
+
+                NBTTagCompound data = new NBTTagCompound();
+                NBTTagList ticketList = new NBTTagList();
+                data.setTag("TicketList", ticketList);
+                for (Map.Entry<String, List<TicketSnapshot>> entry : snapshot.entrySet())
+                {
+                    NBTTagCompound ticketHolder = new NBTTagCompound();
+                    ticketList.appendTag(ticketHolder);
+
+                    ticketHolder.setString("Owner", entry.getKey());
+                    NBTTagList tickets = new NBTTagList();
+                    ticketHolder.setTag("Tickets", tickets);
+
+                    for (TicketSnapshot ticket : entry.getValue())
+                    {
+                        tickets.appendTag(ticket.writeToNBT());
+                    }
+                }
+
+                try
+                {
+                    FileOutputStream fileOut = new FileOutputStream(tempFile);
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut));
+                    try
+                    {
+                        CompressedStreamTools.write(data, out);
+                        out.flush();
+                        fileOut.getFD().sync();
+                    }
+                    finally
+                    {
+                        out.close();
+                    }
+                    if (!isReadable(tempFile))
+                    {
+                        tempFile.delete();
+                        throw new IOException("Unable to read back " + tempFile.getName());
+                    }
+                    if (!tempFile.renameTo(file))
+                    {
+                        // Windows will not rename over an existing file
+                        file.delete();
+                        if (!tempFile.renameTo(file))
+                        {
+                            throw new IOException("Unable to rename " + tempFile.getName() + " to " + file.getName());
+                        }
+                    }
+                }
+                catch (IOException e)
+                {
+                    FMLLog.log(Level.WARNING, e, "Unable to write forced chunk data to %s - chunkloading won't work", file.getAbsolutePath());
+                }
+            }
+        }
+    }
+
 
     /**
      * Allows dynamically loading world mods to test if there are chunk tickets in the world
@@ -372,7 +834,7 @@ public class ForgeChunkManager
      */
     public static boolean savedWorldHasForcedChunkTickets(File chunkDir)
     {
-        File chunkLoaderData = new File(chunkDir, "forcedchunks.dat");
+        File chunkLoaderData = getForcedChunkFile(chunkDir);
 
         if (chunkLoaderData.exists() && chunkLoaderData.isFile())
         {
@@ -389,22 +851,77 @@ public class ForgeChunkManager
         return false;
     }
 
+    /**
+     * Returns the forcedchunks.dat file of the chunk directory, once any save of it that is
+     * still waiting for the IO thread is written, and recovers the data of a save that was
+     * interrupted between removing the old file and renaming the new one. A temporary file
+     * that was itself only partly written is discarded instead.
+     */
+    private static File getForcedChunkFile(File chunkDir)
+    {
+        File file = new File(chunkDir, "forcedchunks.dat").getAbsoluteFile();
+        ForcedChunkSaver saver = forcedChunkSavers.get(file);
+        if (saver != null)
+        {
+            saver.write();
+        }
+        File tempFile = new File(chunkDir, "forcedchunks.dat.tmp");
+        if (!file.exists() && tempFile.isFile())
+        {
+            if (isReadable(tempFile))
+            {
+                FMLLog.info("Recovering forced chunk data from %s", tempFile.getAbsolutePath());
+                tempFile.renameTo(file);
+            }
+            else
+            {
+                FMLLog.warning("Discarding incomplete forced chunk data at %s", tempFile.getAbsolutePath());
+                tempFile.delete();
+            }
+        }
+        return file;
+    }
+
+    /**
+     * @return If the file holds a complete NBT compound, a file cut short by a crash does not
+     */
+    private static boolean isReadable(File file)
+    {
+        try
+        {
+            return CompressedStreamTools.read(file) != null;
+        }
+        catch (Exception e)
+        {
+            // Damaged data can also fail with a ReportedException from NBTBase
+            return false;
+        }
+    }
+
     static void loadWorld(World world)
     {
         ArrayListMultimap<String, Ticket> newTickets = ArrayListMultimap.<String, Ticket>create();
         tickets.put(world, newTickets);
 
-        forcedChunks.put(world, ImmutableSetMultimap.<ChunkCoordIntPair,Ticket>of());
+        forcedChunks.put(world, new ForcedChunkIndex());
 
         if (!(world instanceof WorldServer))
         {
             return;
         }
 
-        dormantChunkCache.put(world, CacheBuilder.newBuilder().maximumSize(dormantChunkCacheSize).<Long, Chunk>build());
+        if (stagedChunkLoading)
+        {
+            stagingQueues.put(world, new LinkedList<ChunkCoordIntPair>());
+        }
+
+        if (dormantChunkCacheSize > 0 || dormantChunkCacheMemory > 0)
+        {
+            dormantChunkCache.put(world, new DormantChunkCache(world, dormantChunkCacheSize, dormantChunkCacheMemory * 1024L * 1024L, dormantChunkEvictionPolicy));
+        }
         WorldServer worldServer = (WorldServer) world;
         File chunkDir = worldServer.getChunkSaveLocation();
-        File chunkLoaderData = new File(chunkDir, "forcedchunks.dat");
+        File chunkLoaderData = getForcedChunkFile(chunkDir);
 
         if (chunkLoaderData.exists() && chunkLoaderData.isFile())
         {
@@ -537,8 +1054,18 @@ public class ForgeChunkManager
             return;
         }
 
+        File chunkLoaderData = new File(((WorldServer) world).getChunkSaveLocation(), "forcedchunks.dat").getAbsoluteFile();
+        ForcedChunkSaver saver = forcedChunkSavers.get(chunkLoaderData);
+        if (saver != null)
+        {
+            saver.release();
+        }
+
         forcedChunks.remove(world);
         dormantChunkCache.remove(world);
+        stagingQueues.remove(world);
+        unloadSchedulers.remove(world);
+        prefetchReleases.remove(world);
      // integrated server is shutting down
         if (!MinecraftServer.getServer().isServerRunning())
         {
@@ -685,10 +1212,7 @@ public class ForgeChunkManager
         }
         if (ticket.requestedChunks!=null)
         {
-            for (ChunkCoordIntPair chunk : ImmutableSet.copyOf(ticket.requestedChunks))
-            {
-                unforceChunk(ticket, chunk);
-            }
+            unforceChunks(ticket, ImmutableSet.copyOf(ticket.requestedChunks));
         }
         if (ticket.isPlayerTicket())
         {
@@ -715,6 +1239,27 @@ public class ForgeChunkManager
         {
             return;
         }
+        if (!checkForceTicket(ticket))
+        {
+            return;
+        }
+        if (entityPrefetch && ticket.ticketType == Type.ENTITY)
+        {
+            trackPrefetch(ticket, chunk);
+        }
+        ticket.requestedChunks.add(chunk);
+        MinecraftForge.EVENT_BUS.post(new ForceChunkEvent(ticket, chunk));
+
+        forcedChunks.get(ticket.world).add(chunk, ticket);
+        if (ticket.maxDepth > 0 && ticket.requestedChunks.size() > ticket.maxDepth)
+        {
+            ChunkCoordIntPair removed = ticket.requestedChunks.iterator().next();
+            unforceChunk(ticket,removed);
+        }
+    }
+
+    private static boolean checkForceTicket(Ticket ticket)
+    {
         if (ticket.ticketType == Type.ENTITY && ticket.entity == null)
         {
             throw new RuntimeException("Attempted to use an entity ticket to force a chunk, without an entity");
@@ -722,18 +1267,368 @@ public class ForgeChunkManager
         if (ticket.isPlayerTicket() ? !playerTickets.containsValue(ticket) : !tickets.get(ticket.world).containsEntry(ticket.modId, ticket))
         {
             FMLLog.severe("The mod %s attempted to force load a chunk with an invalid ticket. This is not permitted.", ticket.modId);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Force all of the supplied chunks to be loaded by the supplied ticket, see {@link #forceChunk(Ticket, ChunkCoordIntPair)}.
+     * The ticket is only validated once, and a single {@link ForceChunksEvent} is posted for the whole batch.
+     * A {@link ForceChunkEvent} is also posted for each chunk, if anything is listening for them.
+     *
+     * @param ticket The ticket registering the chunks
+     * @param chunks The chunks to force, in order
+     */
+    public static void forceChunks(Ticket ticket, Collection<ChunkCoordIntPair> chunks)
+    {
+        forceChunks(ticket, chunks, true);
+    }
+
+    /**
+     * Force all of the supplied chunks to be loaded by the supplied ticket, see {@link #forceChunks(Ticket, Collection)}.
+     *
+     * @param ticket The ticket registering the chunks
+     * @param chunks The chunks to force, in order
+     * @param postChunkEvents If a {@link ForceChunkEvent} should also be posted for each chunk
+     */
+    public static void forceChunks(Ticket ticket, Collection<ChunkCoordIntPair> chunks, boolean postChunkEvents)
+    {
+        if (ticket == null || chunks == null || chunks.isEmpty())
+        {
             return;
         }
-        ticket.requestedChunks.add(chunk);
-        MinecraftForge.EVENT_BUS.post(new ForceChunkEvent(ticket, chunk));
+        if (!checkForceTicket(ticket))
+        {
+            return;
+        }
+        boolean chunkEvents = postChunkEvents && MinecraftForge.EVENT_BUS.hasListeners(ForceChunkEvent.class);
+        ForcedChunkIndex index = forcedChunks.get(ticket.world);
+        ImmutableList.Builder<ChunkCoordIntPair> forced = ImmutableList.builder();
+        for (ChunkCoordIntPair chunk : chunks)
+        {
+            if (chunk == null)
+            {
+                continue;
+            }
+            if (entityPrefetch && ticket.ticketType == Type.ENTITY)
+            {
+                trackPrefetch(ticket, chunk);
+            }
+            ticket.requestedChunks.add(chunk);
+            index.add(chunk, ticket);
+            forced.add(chunk);
+            if (chunkEvents)
+            {
+                MinecraftForge.EVENT_BUS.post(new ForceChunkEvent(ticket, chunk));
+            }
+        }
+        MinecraftForge.EVENT_BUS.post(new ForceChunksEvent(ticket, forced.build()));
 
-        ImmutableSetMultimap<ChunkCoordIntPair, Ticket> newMap = ImmutableSetMultimap.<ChunkCoordIntPair,Ticket>builder().putAll(forcedChunks.get(ticket.world)).put(chunk, ticket).build();
-        forcedChunks.put(ticket.world, newMap);
         if (ticket.maxDepth > 0 && ticket.requestedChunks.size() > ticket.maxDepth)
         {
-            ChunkCoordIntPair removed = ticket.requestedChunks.iterator().next();
-            unforceChunk(ticket,removed);
+            List<ChunkCoordIntPair> removed = Lists.newArrayList();
+            Iterator<ChunkCoordIntPair> itr = ticket.requestedChunks.iterator();
+            for (int x = ticket.requestedChunks.size() - ticket.maxDepth; x > 0; x--)
+            {
+                removed.add(itr.next());
+            }
+            unforceChunks(ticket, removed, postChunkEvents);
+        }
+    }
+
+    /**
+     * Called every tick of a server world. While entity prefetching is enabled the chunks along the
+     * projected path of every moving entity ticket's entity are loaded ahead of it, a few per tick,
+     * so when the entity reaches them and the mod forces them they do not have to be read from disk.
+     *
+     * Only chunks already saved to the world's region files are prefetched, chunks that were never
+     * generated are left for the mod to force. A prefetched chunk stays loaded for twice the lookahead,
+     * it is then unloaded if it was not forced and no player is watching it.
+     */
+    public static void tickWorld(WorldServer world)
+    {
+        if (world.provider.dimensionId == 0)
+        {
+            ChunkLoadingTelemetry.tick();
+            prefetchBudgetLeft = entityPrefetchTotalBudget;
+        }
+        LinkedList<ChunkCoordIntPair> stagingQueue = stagingQueues.get(world);
+        if (stagingQueue != null)
+        {
+            loadStagedChunks(world, stagingQueue);
+        }
+        LinkedHashMap<Long, Long> releases = prefetchReleases.get(world);
+        if (releases != null)
+        {
+            releasePrefetchedChunks(world, releases);
+        }
+        if (!entityPrefetch || !(world.theChunkProviderServer.currentChunkLoader instanceof AnvilChunkLoader))
+        {
+            return;
+        }
+        Multimap<String, Ticket> worldTickets = tickets.get(world);
+        if (worldTickets == null)
+        {
+            return;
+        }
+        for (Ticket ticket : worldTickets.values())
+        {
+            if (prefetchBudgetLeft <= 0)
+            {
+                break;
+            }
+            if (ticket.ticketType == Type.ENTITY && ticket.entity != null)
+            {
+                prefetchChunks(world, ticket);
+            }
+        }
+    }
+
+    /**
+     * Adds the forced chunks of the world to its set of active chunks, the chunks that are ticked,
+     * which loads any of them that are not loaded yet.
+     *
+     * While staged loading is enabled, and the forced chunks of the world have not all been loaded since
+     * it was, only those already loaded are added. The rest are loaded a few at a time by {@link #tickWorld(WorldServer)},
+     * closest to the spawn and the players first, instead of all of them in the first tick.
+     *
+     * @param world The world
+     * @param activeChunks The active chunk set of the world
+     */
+    public static void addActiveChunks(World world, Set<ChunkCoordIntPair> activeChunks)
+    {
+        ImmutableSetMultimap<ChunkCoordIntPair, Ticket> forced = getPersistentChunksFor(world);
+        if (!stagingQueues.containsKey(world))
+        {
+            activeChunks.addAll(forced.keySet());
+            return;
+        }
+        IChunkProvider provider = world.getChunkProvider();
+        for (ChunkCoordIntPair chunk : forced.keySet())
+        {
+            if (provider.chunkExists(chunk.chunkXPos, chunk.chunkZPos))
+            {
+                activeChunks.add(chunk);
+            }
+        }
+    }
+
+    private static void loadStagedChunks(WorldServer world, LinkedList<ChunkCoordIntPair> queue)
+    {
+        long deadline = System.nanoTime() + stagedChunkLoadingBudget * 1000000L;
+        ChunkProviderServer provider = world.theChunkProviderServer;
+        do
+        {
+            if (queue.isEmpty() && !buildStagingQueue(world, queue))
+            {
+                stagingQueues.remove(world);
+                FMLLog.fine("Finished loading the forced chunks of dimension %d", world.provider.dimensionId);
+                return;
+            }
+            ChunkCoordIntPair chunk = queue.removeFirst();
+            if (isChunkForced(world, chunk.chunkXPos, chunk.chunkZPos) && !provider.chunkExists(chunk.chunkXPos, chunk.chunkZPos))
+            {
+                provider.loadChunk(chunk.chunkXPos, chunk.chunkZPos);
+            }
         }
+        while (System.nanoTime() < deadline);
+    }
+
+    /**
+     * Queues the forced chunks of the world that are not loaded, closest to the spawn point or a player first.
+     *
+     * @return If any chunks were queued
+     */
+    private static boolean buildStagingQueue(WorldServer world, LinkedList<ChunkCoordIntPair> queue)
+    {
+        IChunkProvider provider = world.getChunkProvider();
+        List<ChunkCoordIntPair> pending = Lists.newArrayList();
+        for (ChunkCoordIntPair chunk : getPersistentChunksFor(world).keySet())
+        {
+            if (!provider.chunkExists(chunk.chunkXPos, chunk.chunkZPos))
+            {
+                pending.add(chunk);
+            }
+        }
+        if (pending.isEmpty())
+        {
+            return false;
+        }
+
+        ChunkCoordinates spawn = world.getSpawnPoint();
+        final List<int[]> origins = Lists.newArrayList();
+        origins.add(new int[] { spawn.posX >> 4, spawn.posZ >> 4 });
+        for (Object obj : world.playerEntities)
+        {
+            EntityPlayer player = (EntityPlayer) obj;
+            origins.add(new int[] { MathHelper.floor_double(player.posX) >> 4, MathHelper.floor_double(player.posZ) >> 4 });
+        }
+        Collections.sort(pending, new Comparator<ChunkCoordIntPair>()
+        {
+            @Override
+            public int compare(ChunkCoordIntPair o1, ChunkCoordIntPair o2)
+            {
+                long a = getDistanceSq(o1);
+                long b = getDistanceSq(o2);
+                return (a < b ? -1 : (a == b ? 0 : 1));
+            }
+
+            private long getDistanceSq(ChunkCoordIntPair chunk)
+            {
+                long closest = Long.MAX_VALUE;
+                for (int[] origin : origins)
+                {
+                    long dx = chunk.chunkXPos - origin[0];
+                    long dz = chunk.chunkZPos - origin[1];
+                    closest = Math.min(closest, dx * dx + dz * dz);
+                }
+                return closest;
+            }
+        });
+        queue.addAll(pending);
+        return true;
+    }
+
+    private static void prefetchChunks(WorldServer world, Ticket ticket)
+    {
+        Entity entity = ticket.entity;
+        double speed = Math.sqrt(entity.motionX * entity.motionX + entity.motionZ * entity.motionZ);
+        if (speed < 0.1D)
+        {
+            return;
+        }
+
+        ChunkProviderServer provider = world.theChunkProviderServer;
+        DormantChunkCache cache = dormantChunkCache.get(world);
+        File chunkDir = ((AnvilChunkLoader) provider.currentChunkLoader).chunkSaveLocation;
+        double distance = speed * entityPrefetchLookahead;
+        int budget = Math.min(entityPrefetchBudget, prefetchBudgetLeft);
+        int lastX = entity.chunkCoordX;
+        int lastZ = entity.chunkCoordZ;
+        for (double step = 8.0D; step <= distance && budget > 0; step += 8.0D)
+        {
+            int chunkX = MathHelper.floor_double(entity.posX + entity.motionX / speed * step) >> 4;
+            int chunkZ = MathHelper.floor_double(entity.posZ + entity.motionZ / speed * step) >> 4;
+            if (chunkX == lastX && chunkZ == lastZ)
+            {
+                continue;
+            }
+            lastX = chunkX;
+            lastZ = chunkZ;
+
+            long coords = ChunkCoordIntPair.chunkXZ2Int(chunkX, chunkZ);
+            if (provider.chunkExists(chunkX, chunkZ) || (cache != null && cache.contains(coords)) || !isChunkSaved(chunkDir, chunkX, chunkZ))
+            {
+                continue;
+            }
+            provider.loadChunk(chunkX, chunkZ);
+            LinkedHashMap<Long, Long> releases = prefetchReleases.get(world);
+            if (releases == null)
+            {
+                releases = new LinkedHashMap<Long, Long>();
+                prefetchReleases.put(world, releases);
+            }
+            // Removed first, so the entries stay in the order they are released in
+            releases.remove(coords);
+            releases.put(coords, world.getTotalWorldTime() + entityPrefetchLookahead * 2);
+            if (ticket.prefetchedChunks == null)
+            {
+                ticket.prefetchedChunks = new LinkedHashSet<Long>();
+            }
+            ticket.prefetchedChunks.add(coords);
+            prefetchedChunkCount++;
+            prefetchBudgetLeft--;
+            budget--;
+        }
+
+        // The entity may have turned away from older ones
+        if (ticket.prefetchedChunks != null)
+        {
+            Iterator<Long> itr = ticket.prefetchedChunks.iterator();
+            for (int x = ticket.prefetchedChunks.size() - (entityPrefetchLookahead + 1); x > 0; x--)
+            {
+                itr.next();
+                itr.remove();
+            }
+        }
+    }
+
+    /**
+     * Checks the region file, without creating it, for a saved copy of the chunk.
+     */
+    private static boolean isChunkSaved(File chunkDir, int chunkX, int chunkZ)
+    {
+        File regionFile = new File(chunkDir, "region/r." + (chunkX >> 5) + "." + (chunkZ >> 5) + ".mca");
+        return regionFile.isFile() && RegionFileCache.createOrLoadRegionFile(chunkDir, chunkX, chunkZ).isChunkSaved(chunkX & 31, chunkZ & 31);
+    }
+
+    /**
+     * Unloads the prefetched chunks whose time is up, unless they were forced since or a player is watching them.
+     */
+    private static void releasePrefetchedChunks(WorldServer world, LinkedHashMap<Long, Long> releases)
+    {
+        long now = world.getTotalWorldTime();
+        Iterator<Map.Entry<Long, Long>> itr = releases.entrySet().iterator();
+        while (itr.hasNext())
+        {
+            Map.Entry<Long, Long> entry = itr.next();
+            if (entry.getValue() > now)
+            {
+                break;
+            }
+            itr.remove();
+            int chunkX = (int) (long) entry.getKey();
+            int chunkZ = (int) (entry.getKey() >>> 32);
+            if (world.theChunkProviderServer.chunkExists(chunkX, chunkZ) && !isChunkForced(world, chunkX, chunkZ) &&
+                world.getPlayerManager().getOrCreateChunkWatcher(chunkX, chunkZ, false) == null)
+            {
+                world.theChunkProviderServer.unloadChunksIfNotNearSpawn(chunkX, chunkZ);
+            }
+        }
+    }
+
+    private static void trackPrefetch(Ticket ticket, ChunkCoordIntPair chunk)
+    {
+        long coords = ChunkCoordIntPair.chunkXZ2Int(chunk.chunkXPos, chunk.chunkZPos);
+        if (ticket.prefetchedChunks != null && ticket.prefetchedChunks.remove(coords))
+        {
+            prefetchStallsAvoided++;
+        }
+        else if (!ticket.world.getChunkProvider().chunkExists(chunk.chunkXPos, chunk.chunkZPos))
+        {
+            DormantChunkCache cache = dormantChunkCache.get(ticket.world);
+            if (cache == null || !cache.contains(coords))
+            {
+                prefetchStalls++;
+            }
+        }
+    }
+
+    /**
+     * @return The number of chunks loaded ahead of entity tickets by prefetching
+     */
+    public static long getPrefetchedChunkCount()
+    {
+        return prefetchedChunkCount;
+    }
+
+    /**
+     * @return The number of times a entity ticket forced a chunk that had been prefetched for it,
+     * each of which would otherwise have been read from disk while the server waited
+     */
+    public static long getPrefetchStallsAvoided()
+    {
+        return prefetchStallsAvoided;
+    }
+
+    /**
+     * @return The number of times a entity ticket forced a chunk that was neither loaded nor dormant,
+     * while prefetching was enabled
+     */
+    public static long getPrefetchStalls()
+    {
+        return prefetchStalls;
     }
 
     /**
@@ -767,10 +1662,60 @@ public class ForgeChunkManager
         }
         ticket.requestedChunks.remove(chunk);
         MinecraftForge.EVENT_BUS.post(new UnforceChunkEvent(ticket, chunk));
-        LinkedHashMultimap<ChunkCoordIntPair, Ticket> copy = LinkedHashMultimap.create(forcedChunks.get(ticket.world));
-        copy.remove(chunk, ticket);
-        ImmutableSetMultimap<ChunkCoordIntPair, Ticket> newMap = ImmutableSetMultimap.copyOf(copy);
-        forcedChunks.put(ticket.world,newMap);
+        ForcedChunkIndex index = forcedChunks.get(ticket.world);
+        if (index != null)
+        {
+            index.remove(chunk, ticket);
+        }
+    }
+
+    /**
+     * Unforce all of the supplied chunks, see {@link #unforceChunk(Ticket, ChunkCoordIntPair)}.
+     * A single {@link UnforceChunksEvent} is posted for the whole batch, and a {@link UnforceChunkEvent}
+     * for each chunk, if anything is listening for them.
+     *
+     * @param ticket The ticket holding the chunks
+     * @param chunks The chunks to unforce
+     */
+    public static void unforceChunks(Ticket ticket, Collection<ChunkCoordIntPair> chunks)
+    {
+        unforceChunks(ticket, chunks, true);
+    }
+
+    /**
+     * Unforce all of the supplied chunks, see {@link #unforceChunks(Ticket, Collection)}.
+     *
+     * @param ticket The ticket holding the chunks
+     * @param chunks The chunks to unforce
+     * @param postChunkEvents If a {@link UnforceChunkEvent} should also be posted for each chunk
+     */
+    public static void unforceChunks(Ticket ticket, Collection<ChunkCoordIntPair> chunks, boolean postChunkEvents)
+    {
+        if (ticket == null || chunks == null || chunks.isEmpty())
+        {
+            return;
+        }
+        boolean chunkEvents = postChunkEvents && MinecraftForge.EVENT_BUS.hasListeners(UnforceChunkEvent.class);
+        ForcedChunkIndex index = forcedChunks.get(ticket.world);
+        ImmutableList.Builder<ChunkCoordIntPair> unforced = ImmutableList.builder();
+        for (ChunkCoordIntPair chunk : chunks)
+        {
+            if (chunk == null)
+            {
+                continue;
+            }
+            ticket.requestedChunks.remove(chunk);
+            if (index != null)
+            {
+                index.remove(chunk, ticket);
+            }
+            unforced.add(chunk);
+            if (chunkEvents)
+            {
+                MinecraftForge.EVENT_BUS.post(new UnforceChunkEvent(ticket, chunk));
+            }
+        }
+        MinecraftForge.EVENT_BUS.post(new UnforceChunksEvent(ticket, unforced.build()));
     }
 
     static void loadConfiguration()
@@ -790,13 +1735,39 @@ public class ForgeChunkManager
     }
 
     /**
-     * The list of persistent chunks in the world. This set is immutable.
+     * The list of persistent chunks in the world. This set is immutable, it is a snapshot
+     * that is not changed when chunks are later forced or unforced.
      * @param world
      * @return the list of persistent chunks in the world
      */
     public static ImmutableSetMultimap<ChunkCoordIntPair, Ticket> getPersistentChunksFor(World world)
     {
-        return forcedChunks.containsKey(world) ? forcedChunks.get(world) : ImmutableSetMultimap.<ChunkCoordIntPair,Ticket>of();
+        ForcedChunkIndex index = forcedChunks.get(world);
+        return index != null ? index.getSnapshot() : ImmutableSetMultimap.<ChunkCoordIntPair,Ticket>of();
+    }
+
+    /**
+     * All tickets held in the world, by mods and for players.
+     */
+    static Collection<Ticket> getTicketsFor(World world)
+    {
+        Multimap<String, Ticket> worldTickets = tickets.get(world);
+        return worldTickets != null ? worldTickets.values() : ImmutableList.<Ticket>of();
+    }
+
+    /**
+     * Determines if the chunk is forced by any ticket, without building the persistent chunk map
+     * or allocating a ChunkCoordIntPair.
+     *
+     * @param world The world
+     * @param chunkX The chunk x coordinate
+     * @param chunkZ The chunk z coordinate
+     * @return If the chunk is forced
+     */
+    public static boolean isChunkForced(World world, int chunkX, int chunkZ)
+    {
+        ForcedChunkIndex index = forcedChunks.get(world);
+        return index != null && index.contains(chunkX, chunkZ);
     }
 
     static void saveWorld(World world)
@@ -805,58 +1776,36 @@ public class ForgeChunkManager
         if (!(world instanceof WorldServer)) { return; }
         WorldServer worldServer = (WorldServer) world;
         File chunkDir = worldServer.getChunkSaveLocation();
-        File chunkLoaderData = new File(chunkDir, "forcedchunks.dat");
-
-        NBTTagCompound forcedChunkData = new NBTTagCompound();
-        NBTTagList ticketList = new NBTTagList();
-        forcedChunkData.setTag("TicketList", ticketList);
+        File chunkLoaderData = new File(chunkDir, "forcedchunks.dat").getAbsoluteFile();
 
+        Map<String, List<TicketSnapshot>> snapshot = new LinkedHashMap<String, List<TicketSnapshot>>();
         Multimap<String, Ticket> ticketSet = tickets.get(worldServer);
         for (String modId : ticketSet.keySet())
         {
-            NBTTagCompound ticketHolder = new NBTTagCompound();
-            ticketList.appendTag(ticketHolder);
-
-            ticketHolder.setString("Owner", modId);
-            NBTTagList tickets = new NBTTagList();
-            ticketHolder.setTag("Tickets", tickets);
+            List<TicketSnapshot> tickets = Lists.newArrayList();
+            snapshot.put(modId, tickets);
 
             for (Ticket tick : ticketSet.get(modId))
             {
-                NBTTagCompound ticket = new NBTTagCompound();
-                ticket.setByte("Type", (byte) tick.ticketType.ordinal());
-                ticket.setByte("ChunkListDepth", (byte) tick.maxDepth);
-                if (tick.isPlayerTicket())
-                {
-                    ticket.setString("ModId", tick.modId);
-                    ticket.setString("Player", tick.player);
-                }
-                if (tick.modData != null)
-                {
-                    ticket.setCompoundTag("ModData", tick.modData);
-                }
-                if (tick.ticketType == Type.ENTITY && tick.entity != null && tick.entity.addEntityID(new NBTTagCompound()))
-                {
-                    ticket.setInteger("chunkX", MathHelper.floor_double(tick.entity.chunkCoordX));
-                    ticket.setInteger("chunkZ", MathHelper.floor_double(tick.entity.chunkCoordZ));
-                    ticket.setLong("PersistentIDMSB", tick.entity.getPersistentID().getMostSignificantBits());
-                    ticket.setLong("PersistentIDLSB", tick.entity.getPersistentID().getLeastSignificantBits());
-                    tickets.appendTag(ticket);
-                }
-                else if (tick.ticketType != Type.ENTITY)
+                if (tick.ticketType != Type.ENTITY || (tick.entity != null && tick.entity.addEntityID(new NBTTagCompound())))
                 {
-                    tickets.appendTag(ticket);
+                    tickets.add(new TicketSnapshot(tick));
                 }
             }
         }
-        try
-        {
-            CompressedStreamTools.write(forcedChunkData, chunkLoaderData);
-        }
-        catch (IOException e)
+
+        synchronized (forcedChunkSavers)
         {
-            FMLLog.log(Level.WARNING, e, "Unable to write forced chunk data to %s - chunkloading won't work", chunkLoaderData.getAbsolutePath());
-            return;
+            ForcedChunkSaver saver = forcedChunkSavers.get(chunkLoaderData);
+            if (saver == null)
+            {
+                saver = new ForcedChunkSaver(chunkLoaderData);
+                forcedChunkSavers.put(chunkLoaderData, saver);
+            }
+            if (saver.setPending(snapshot))
+            {
+                ThreadedFileIOBase.threadedIOInstance.queueIO(saver);
+            }
         }
     }
 
@@ -873,7 +1822,7 @@ public class ForgeChunkManager
 
     public static void putDormantChunk(long coords, Chunk chunk)
     {
-        Cache<Long, Chunk> cache = dormantChunkCache.get(chunk.worldObj);
+        DormantChunkCache cache = dormantChunkCache.get(chunk.worldObj);
         if (cache != null)
         {
             cache.put(coords, chunk);
@@ -882,12 +1831,12 @@ public class ForgeChunkManager
 
     public static Chunk fetchDormantChunk(long coords, World world)
     {
-        Cache<Long, Chunk> cache = dormantChunkCache.get(world);
+        DormantChunkCache cache = dormantChunkCache.get(world);
         if (cache == null)
         {
             return null;
         }
-        Chunk chunk = cache.getIfPresent(coords);
+        Chunk chunk = cache.fetch(coords);
         if (chunk != null)
         {
             for (List<Entity> eList : chunk.entityLists)
@@ -901,6 +1850,49 @@ public class ForgeChunkManager
         return chunk;
     }
 
+    /**
+     * Returns the dormant chunk cache of the world, which holds its hit, miss and eviction counts.
+     *
+     * @param world The world
+     * @return The cache, or null if the world has none because the cache is disabled
+     */
+    public static DormantChunkCache getDormantChunkCache(World world)
+    {
+        return dormantChunkCache.get(world);
+    }
+
+    /**
+     * Returns the scheduler that picks the chunks the world unloads each tick, which holds its unload queue metrics.
+     *
+     * @param world The world
+     * @return The scheduler
+     */
+    public static ChunkUnloadScheduler getUnloadScheduler(World world)
+    {
+        ChunkUnloadScheduler scheduler = unloadSchedulers.get(world);
+        if (scheduler == null)
+        {
+            scheduler = new ChunkUnloadScheduler();
+            unloadSchedulers.put(world, scheduler);
+        }
+        return scheduler;
+    }
+
+    /**
+     * Sets the policy used to pick which dormant chunk to drop when a world's cache is full,
+     * for every loaded world and those loaded later.
+     *
+     * @param policy The policy, see {@link DormantChunkCache#LRU} and {@link DormantChunkCache#PLAYER_PROXIMITY}
+     */
+    public static void setDormantChunkEvictionPolicy(DormantChunkCache.EvictionPolicy policy)
+    {
+        dormantChunkEvictionPolicy = policy;
+        for (DormantChunkCache cache : dormantChunkCache.values())
+        {
+            cache.setEvictionPolicy(policy);
+        }
+    }
+
     static void captureConfig(File configDir)
     {
         cfgFile = new File(configDir,"forgeChunkLoading.cfg");
@@ -940,6 +1932,58 @@ public class ForgeChunkManager
         dormantChunkCacheSize = dormantChunkCacheSizeProperty.getInt(0);
         FMLLog.info("Configured a dormant chunk cache size of %d", dormantChunkCacheSizeProperty.getInt(0));
 
+        Property dormantChunkCacheMemoryProperty = config.get("defaults", "dormantChunkCacheMemory", 0);
+        dormantChunkCacheMemoryProperty.comment = "The maximum estimated memory (in megabytes) the dormant chunks of each world may retain.\n" +
+                    "Zero means the cache is only limited by dormantChunkCacheSize, if both are zero the cache is disabled";
+        dormantChunkCacheMemory = dormantChunkCacheMemoryProperty.getInt(0);
+
+        Property dormantChunkCacheEvictionProperty = config.get("defaults", "dormantChunkCacheEviction", "LRU");
+        dormantChunkCacheEvictionProperty.comment = "Which dormant chunk is dropped when the cache is full. LRU drops the least recently unloaded chunk,\n" +
+                    "PROXIMITY drops the least often reused chunk, weighted by the distance to the closest player";
+        if (dormantChunkCacheEvictionProperty.value.equalsIgnoreCase("PROXIMITY"))
+        {
+            dormantChunkEvictionPolicy = DormantChunkCache.PLAYER_PROXIMITY;
+        }
+
+        Property entityPrefetchProperty = config.get("defaults", "entityPrefetch", false);
+        entityPrefetchProperty.comment = "Load the chunks ahead of moving entities that hold entity tickets, such as minecarts,\n" +
+                    "before they reach them. Only chunks that have already been generated and saved are loaded";
+        entityPrefetch = entityPrefetchProperty.getBoolean(false);
+
+        Property entityPrefetchLookaheadProperty = config.get("defaults", "entityPrefetchLookahead", 40);
+        entityPrefetchLookaheadProperty.comment = "How far ahead, in ticks of movement at the entity's current speed, chunks are prefetched";
+        entityPrefetchLookahead = Math.max(entityPrefetchLookaheadProperty.getInt(40), 1);
+
+        Property entityPrefetchBudgetProperty = config.get("defaults", "entityPrefetchBudget", 1);
+        entityPrefetchBudgetProperty.comment = "The maximum number of chunks prefetched for a single ticket each tick";
+        entityPrefetchBudget = Math.max(entityPrefetchBudgetProperty.getInt(1), 1);
+
+        Property entityPrefetchTotalBudgetProperty = config.get("defaults", "entityPrefetchTotalBudget", 4);
+        entityPrefetchTotalBudgetProperty.comment = "The maximum number of chunks prefetched for all tickets of all worlds together each tick";
+        entityPrefetchTotalBudget = Math.max(entityPrefetchTotalBudgetProperty.getInt(4), 1);
+
+        Property ticketReportIntervalProperty = config.get("defaults", "ticketReportInterval", 0);
+        ticketReportIntervalProperty.comment = "How often, in seconds, the forced chunks, entities, tile entities and estimated tick time\n" +
+                    "of every mod's and player's tickets are written to forge_chunk_tickets.txt. Zero disables the report";
+        ChunkLoadingTelemetry.configure(new File(configDir.getParentFile(), "forge_chunk_tickets.txt"), ticketReportIntervalProperty.getInt(0));
+
+        Property stagedChunkLoadingProperty = config.get("defaults", "stagedChunkLoading", false);
+        stagedChunkLoadingProperty.comment = "Load the forced chunks of a world over several ticks after it loads, closest to the spawn and\n" +
+                    "the players first, instead of all of them in its first tick";
+        stagedChunkLoading = stagedChunkLoadingProperty.getBoolean(false);
+
+        Property stagedChunkLoadingBudgetProperty = config.get("defaults", "stagedChunkLoadingBudget", 10);
+        stagedChunkLoadingBudgetProperty.comment = "The time, in milliseconds, each world may spend loading forced chunks per tick while staged loading";
+        stagedChunkLoadingBudget = Math.max(stagedChunkLoadingBudgetProperty.getInt(10), 1);
+
+        Property chunkUnloadMinimumProperty = config.get("defaults", "chunkUnloadMinimum", 100);
+        chunkUnloadMinimumProperty.comment = "The number of queued chunks each world unloads per tick, however long the tick is taking.\n" +
+                    "Vanilla unloads 100, lower values let the unload queue grow on a lagging server";
+        Property chunkUnloadBudgetProperty = config.get("defaults", "chunkUnloadBudget", 5);
+        chunkUnloadBudgetProperty.comment = "The time, in milliseconds, each world may spend unloading more queued chunks per tick.\n" +
+                    "Less is used when the server's ticks leave less than this of their 50ms";
+        ChunkUnloadScheduler.configure(chunkUnloadMinimumProperty.getInt(100), chunkUnloadBudgetProperty.getInt(5));
+
         Property modOverridesEnabled = config.get("defaults", "enabled", true);
         modOverridesEnabled.comment = "Are mod overrides enabled?";
         overridesEnabled = modOverridesEnabled.getBoolean(true);
@@ -3,12 +3,15 @@ package net.minecraftforge.common;
 import java.io.File;
 import java.util.Arrays;
 import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
 
 import net.minecraft.nbt.NBTBase;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.server.management.PlayerInstance;
 import net.minecraft.world.storage.SaveHandler;
 import net.minecraft.world.storage.WorldInfo;
+import net.minecraftforge.event.AsyncEventListener;
 
 import com.google.common.eventbus.EventBus;
 import com.google.common.eventbus.Subscribe;
@@ -26,6 +29,10 @@ import static net.minecraftforge.common.ForgeVersion.*;
 public class ForgeDummyContainer extends DummyModContainer implements WorldAccessContainer
 {
     public static int clumpingThreshold = 64;
+    public static boolean compiledEventDispatch = false;
+    public static int asyncEventThreads = 2;
+    public static boolean eventProfiling = false;
+    public static int eventProfilingDumpInterval = 60;
 
     public ForgeDummyContainer()
     {
@@ -62,6 +69,49 @@ public class ForgeDummyContainer extends DummyModContainer implements WorldAcces
             clumpingThreshold = 64;
             clumpingThresholdProperty.value = "64";
         }
+
+        Property compiledEventDispatchProperty = config.get(Configuration.CATEGORY_GENERAL, "compiledEventDispatch", false);
+        compiledEventDispatchProperty.comment = "Set to true to invoke event listeners through a generated dispatcher class per event instead of a loop, this lets the JIT inline hot events";
+        compiledEventDispatch = compiledEventDispatchProperty.getBoolean(false);
+        MinecraftForge.EVENT_BUS.setCompiledDispatch(compiledEventDispatch);
+        MinecraftForge.TERRAIN_GEN_BUS.setCompiledDispatch(compiledEventDispatch);
+        MinecraftForge.ORE_GEN_BUS.setCompiledDispatch(compiledEventDispatch);
+
+        Property asyncEventThreadsProperty = config.get(Configuration.CATEGORY_GENERAL, "asyncEventThreads", 2);
+        asyncEventThreadsProperty.comment = "The number of worker threads used to deliver events to async event listeners, minimum 1";
+        asyncEventThreads = asyncEventThreadsProperty.getInt(2);
+        if (asyncEventThreads < 1)
+        {
+            asyncEventThreads = 1;
+            asyncEventThreadsProperty.value = "1";
+        }
+        AsyncEventListener.setThreadCount(asyncEventThreads);
+
+        Property eventProfilingProperty = config.get(Configuration.CATEGORY_GENERAL, "eventProfiling", false);
+        eventProfilingProperty.comment = "Set to true to record the invocation count and time of every event listener on the Forge event buses";
+        eventProfiling = eventProfilingProperty.getBoolean(false);
+        Property eventProfilingDumpIntervalProperty = config.get(Configuration.CATEGORY_GENERAL, "eventProfilingDumpInterval", 60);
+        eventProfilingDumpIntervalProperty.comment = "Controls how often, in seconds, the event listener timings are written to forge_event_profile.txt while eventProfiling is enabled, 0 to never write them";
+        eventProfilingDumpInterval = eventProfilingDumpIntervalProperty.getInt(60);
+        if (eventProfiling)
+        {
+            MinecraftForge.EVENT_BUS.setProfiling(true);
+            MinecraftForge.TERRAIN_GEN_BUS.setProfiling(true);
+            MinecraftForge.ORE_GEN_BUS.setProfiling(true);
+            if (eventProfilingDumpInterval > 0)
+            {
+                final File dumpFile = new File(Loader.instance().getConfigDir().getParentFile(), "forge_event_profile.txt");
+                long interval = eventProfilingDumpInterval * 1000L;
+                new Timer("Forge Event Profile Writer", true).schedule(new TimerTask()
+                {
+                    @Override
+                    public void run()
+                    {
+                        MinecraftForge.writeEventProfile(dumpFile);
+                    }
+                }, interval, interval);
+            }
+        }
         config.save();
     }
 
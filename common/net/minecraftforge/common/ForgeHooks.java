@@ -330,6 +330,10 @@ public class ForgeHooks
 
     public static boolean onLivingUpdate(EntityLiving entity)
     {
+        if (!MinecraftForge.EVENT_BUS.hasListeners(LivingUpdateEvent.class))
+        {
+            return false;
+        }
         return MinecraftForge.EVENT_BUS.post(new LivingUpdateEvent(entity));
     }
 
@@ -356,6 +360,10 @@ public class ForgeHooks
 
     public static float onLivingFall(EntityLiving entity, float distance)
     {
+        if (!MinecraftForge.EVENT_BUS.hasListeners(LivingFallEvent.class))
+        {
+            return distance;
+        }
         LivingFallEvent event = new LivingFallEvent(entity, distance);
         return (MinecraftForge.EVENT_BUS.post(event) ? 0.0f : event.distance);
     }
@@ -1,7 +1,12 @@
 package net.minecraftforge.common;
 
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
 import java.lang.reflect.Constructor;
 import java.util.*;
+import java.util.logging.Level;
 
 import cpw.mods.fml.common.FMLCommonHandler;
 import cpw.mods.fml.common.FMLLog;
@@ -204,6 +209,37 @@ public class MinecraftForge
        OreDictionary.getOreName(0);
    }
 
+   /**
+    * Writes the listener timings of all Forge event buses to the specified file.
+    * Timings are only collected for buses with profiling enabled, see {@link EventBus#setProfiling}.
+    *
+    * @param file The file to write the report to, it is replaced if it exists
+    */
+   public static void writeEventProfile(File file)
+   {
+       PrintWriter out = null;
+       try
+       {
+           out = new PrintWriter(new FileWriter(file));
+           out.println("Forge event listener profile, written " + new Date());
+           out.println();
+           EVENT_BUS.getProfiler().writeReport(out, "EVENT_BUS");
+           TERRAIN_GEN_BUS.getProfiler().writeReport(out, "TERRAIN_GEN_BUS");
+           ORE_GEN_BUS.getProfiler().writeReport(out, "ORE_GEN_BUS");
+       }
+       catch (IOException e)
+       {
+           FMLLog.log(Level.WARNING, e, "Unable to write the event profile to %s", file.getAbsolutePath());
+       }
+       finally
+       {
+           if (out != null)
+           {
+               out.close();
+           }
+       }
+   }
+
    public static String getBrandingVersion()
    {
        return "Minecraft Forge "+ ForgeVersion.getVersion();
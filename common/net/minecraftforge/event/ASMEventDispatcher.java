@@ -0,0 +1,205 @@
+package net.minecraftforge.event;
+
+import static org.objectweb.asm.Opcodes.*;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+
+/**
+ * Generates a single IEventListener that calls every listener of a (bus, event) pair in order.
+ *
+ * The listener calls are unrolled into one method, each through its own call site, and the
+ * receiveCanceled checks of the ASMEventHandlers are resolved when the class is generated.
+ * This lets the JIT treat every call site as monomorphic and inline the whole dispatch.
+ */
+public class ASMEventDispatcher
+{
+    private static int IDs = 0;
+    private static final String HANDLER_DESC = Type.getInternalName(IEventListener.class);
+    private static final String HANDLER_FUNC_DESC = Type.getMethodDescriptor(IEventListener.class.getDeclaredMethods()[0]);
+    private static final String EVENT_DESC = Type.getInternalName(Event.class);
+
+    /**
+     * Bytes of bytecode the invoke method spends on a listener: ALOAD, GETFIELD, ALOAD and
+     * INVOKEINTERFACE for the call, and ALOAD, INVOKEVIRTUAL and IFNE for the canceled check.
+     */
+    private static final int CALL_SIZE = 1 + 3 + 1 + 5;
+    private static final int CHECK_SIZE = 1 + 3 + 3;
+
+    /**
+     * HotSpot does not compile methods larger than 8000 bytes of bytecode, which would leave the
+     * dispatcher slower than the plain loop. This stays well under that, room for 400 listeners
+     * that all check for cancellation, and larger lists use the plain loop instead.
+     */
+    private static final int MAX_INVOKE_SIZE = 1 + 400 * (CALL_SIZE + CHECK_SIZE);
+
+    private static final IEventListener EMPTY = new IEventListener()
+    {
+        @Override
+        public void invoke(Event event){}
+    };
+
+    /**
+     * Creates a dispatcher for the supplied listeners.
+     *
+     * @param listeners The listeners, in the order they should be invoked
+     * @return A IEventListener that invokes all of the listeners
+     */
+    public static IEventListener create(IEventListener[] listeners)
+    {
+        if (listeners.length == 0)
+        {
+            return EMPTY;
+        }
+        if (listeners.length * CALL_SIZE > MAX_INVOKE_SIZE)
+        {
+            return new LoopDispatcher(listeners);
+        }
+
+        IEventListener[] targets = new IEventListener[listeners.length];
+        boolean[] checkCanceled = new boolean[listeners.length];
+        for (int x = 0; x < listeners.length; x++)
+        {
+            IEventListener listener = listeners[x];
+            if (listener instanceof ASMEventHandler)
+            {
+                ASMEventHandler asm = (ASMEventHandler)listener;
+                targets[x] = asm.getHandler();
+                checkCanceled[x] = !asm.receiveCanceled();
+            }
+            else
+            {
+                targets[x] = listener;
+                checkCanceled[x] = false;
+            }
+        }
+        if (getInvokeSize(checkCanceled) > MAX_INVOKE_SIZE)
+        {
+            return new LoopDispatcher(listeners);
+        }
+
+        try
+        {
+            return (IEventListener)createDispatcher(checkCanceled).getConstructor(IEventListener[].class).newInstance((Object)targets);
+        }
+        catch (Exception e)
+        {
+            e.printStackTrace();
+            return new LoopDispatcher(listeners);
+        }
+    }
+
+    private static Class<?> createDispatcher(boolean[] checkCanceled)
+    {
+        ClassWriter cw = new ClassWriter(0);
+        MethodVisitor mv;
+
+        String name = getUniqueName(checkCanceled.length);
+        String desc = name.replace('.', '/');
+
+        cw.visit(V1_6, ACC_PUBLIC | ACC_SUPER, desc, null, "java/lang/Object", new String[]{ HANDLER_DESC });
+
+        cw.visitSource(".dynamic", null);
+        for (int x = 0; x < checkCanceled.length; x++)
+        {
+            cw.visitField(ACC_PRIVATE | ACC_FINAL, "h" + x, "L" + HANDLER_DESC + ";", null, null).visitEnd();
+        }
+        {
+            mv = cw.visitMethod(ACC_PUBLIC, "<init>", "([L" + HANDLER_DESC + ";)V", null, null);
+            mv.visitCode();
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V");
+            for (int x = 0; x < checkCanceled.length; x++)
+            {
+                mv.visitVarInsn(ALOAD, 0);
+                mv.visitVarInsn(ALOAD, 1);
+                mv.visitLdcInsn(x);
+                mv.visitInsn(AALOAD);
+                mv.visitFieldInsn(PUTFIELD, desc, "h" + x, "L" + HANDLER_DESC + ";");
+            }
+            mv.visitInsn(RETURN);
+            mv.visitMaxs(3, 2);
+            mv.visitEnd();
+        }
+        {
+            mv = cw.visitMethod(ACC_PUBLIC, "invoke", HANDLER_FUNC_DESC, null, null);
+            mv.visitCode();
+            for (int x = 0; x < checkCanceled.length; x++)
+            {
+                Label skip = new Label();
+                if (checkCanceled[x])
+                {
+                    mv.visitVarInsn(ALOAD, 1);
+                    mv.visitMethodInsn(INVOKEVIRTUAL, EVENT_DESC, "isCanceled", "()Z");
+                    mv.visitJumpInsn(IFNE, skip);
+                }
+                mv.visitVarInsn(ALOAD, 0);
+                mv.visitFieldInsn(GETFIELD, desc, "h" + x, "L" + HANDLER_DESC + ";");
+                mv.visitVarInsn(ALOAD, 1);
+                mv.visitMethodInsn(INVOKEINTERFACE, HANDLER_DESC, "invoke", HANDLER_FUNC_DESC);
+                mv.visitLabel(skip);
+            }
+            mv.visitInsn(RETURN);
+            mv.visitMaxs(2, 2);
+            mv.visitEnd();
+        }
+        cw.visitEnd();
+        // Each dispatcher gets its own loader, so it can be unloaded once the listeners change and it is replaced
+        return new ASMClassLoader().define(name, cw.toByteArray());
+    }
+
+    /**
+     * @return The size in bytes of the invoke method createDispatcher generates
+     */
+    private static int getInvokeSize(boolean[] checkCanceled)
+    {
+        int size = 1; // RETURN
+        for (boolean check : checkCanceled)
+        {
+            size += (check ? CALL_SIZE + CHECK_SIZE : CALL_SIZE);
+        }
+        return size;
+    }
+
+    private static synchronized String getUniqueName(int size)
+    {
+        return String.format("%s_%d_%d", ASMEventDispatcher.class.getName(), IDs++, size);
+    }
+
+    /**
+     * Fallback used when a dispatcher class can not, or should not, be generated.
+     */
+    private static class LoopDispatcher implements IEventListener
+    {
+        private final IEventListener[] listeners;
+
+        private LoopDispatcher(IEventListener[] listeners)
+        {
+            this.listeners = listeners;
+        }
+
+        @Override
+        public void invoke(Event event)
+        {
+            for (IEventListener listener : listeners)
+            {
+                listener.invoke(event);
+            }
+        }
+    }
+
+    private static class ASMClassLoader extends ClassLoader
+    {
+        private ASMClassLoader()
+        {
+            super(ASMClassLoader.class.getClassLoader());
+        }
+
+        public Class<?> define(String name, byte[] data)
+        {
+            return defineClass(name, data, 0, data.length);
+        }
+    }
+}
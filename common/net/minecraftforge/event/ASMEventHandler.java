@@ -2,7 +2,10 @@ package net.minecraftforge.event;
 
 import static org.objectweb.asm.Opcodes.*;
 
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.WeakHashMap;
 
 
 import org.objectweb.asm.ClassWriter;
@@ -15,7 +18,7 @@ public class ASMEventHandler implements IEventListener
     private static int IDs = 0;
     private static final String HANDLER_DESC = Type.getInternalName(IEventListener.class);
     private static final String HANDLER_FUNC_DESC = Type.getMethodDescriptor(IEventListener.class.getDeclaredMethods()[0]);    
-    private static final ASMClassLoader LOADER = new ASMClassLoader();
+    private static final WeakHashMap<Class<?>, HashMap<String, WeakReference<Class<?>>>> cache = new WeakHashMap<Class<?>, HashMap<String, WeakReference<Class<?>>>>();
     
     private final IEventListener handler;
     private final ForgeSubscribe subInfo;
@@ -41,8 +44,55 @@ public class ASMEventHandler implements IEventListener
     {
         return subInfo.priority();
     }
+
+    ForgeSubscribe getSubInfo()
+    {
+        return subInfo;
+    }
+
+    boolean receiveCanceled()
+    {
+        return subInfo.receiveCanceled();
+    }
+
+    IEventListener getHandler()
+    {
+        return handler;
+    }
     
+    /**
+     * Returns the wrapper class for the callback, generating it if needed.
+     * 
+     * Wrapper classes are shared by every instance subscribed through the same method, 
+     * and each is defined in its own class loader which is only weakly cached. Once 
+     * every listener using it is unregistered, the class can be unloaded.
+     * 
+     * The cache is keyed weakly on the subscriber class, and by the method's name and 
+     * descriptor within it, so it does not keep the subscriber class loaded either.
+     */
     public Class<?> createWrapper(Method callback)
+    {
+        synchronized (cache)
+        {
+            HashMap<String, WeakReference<Class<?>>> methods = cache.get(callback.getDeclaringClass());
+            if (methods == null)
+            {
+                methods = new HashMap<String, WeakReference<Class<?>>>();
+                cache.put(callback.getDeclaringClass(), methods);
+            }
+            String key = callback.getName() + Type.getMethodDescriptor(callback);
+            WeakReference<Class<?>> ref = methods.get(key);
+            Class<?> ret = (ref == null ? null : ref.get());
+            if (ret == null)
+            {
+                ret = generateWrapper(callback);
+                methods.put(key, new WeakReference<Class<?>>(ret));
+            }
+            return ret;
+        }
+    }
+
+    private Class<?> generateWrapper(Method callback)
     {
         ClassWriter cw = new ClassWriter(0);
         MethodVisitor mv;
@@ -92,7 +142,7 @@ public class ASMEventHandler implements IEventListener
             mv.visitEnd();
         }
         cw.visitEnd();
-        return LOADER.define(name, cw.toByteArray());
+        return new ASMClassLoader().define(name, cw.toByteArray());
     }
     
     private String getUniqueName(Method callback)
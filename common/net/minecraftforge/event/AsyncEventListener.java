@@ -0,0 +1,297 @@
+package net.minecraftforge.event;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Wraps a listener registered with {@link ForgeSubscribe#async()} so that events
+ * are queued and handed to it on a shared pool of worker threads, instead of
+ * being invoked on the thread that posted them.
+ *
+ * Each listener has its own bounded queue, and is only ever run on one worker
+ * at a time, so it sees its events in the order they were posted.
+ *
+ * The listener gets the posted instance, so only events marked with {@link Event.AsyncSafe}
+ * can be registered for. Whatever its priority, it is invoked after the other listeners of the
+ * event, so they can not change the event once it is queued. Once it is unregistered, the events
+ * still in its queue are discarded.
+ */
+public class AsyncEventListener implements IEventListener
+{
+    /**
+     * What to do with a event when the listener's queue is full.
+     */
+    public enum Policy
+    {
+        /**
+         * Discard the new event.
+         */
+        DROP,
+        /**
+         * Make the posting thread wait until there is room in the queue.
+         */
+        BLOCK,
+        /**
+         * Discard the oldest queued event to make room for the new one.
+         */
+        COALESCE
+    }
+
+    private static int threadCount = 2;
+    private static ThreadPoolExecutor pool;
+
+    private final IEventListener handler;
+    private final String name;
+    private final Policy policy;
+    private final ArrayBlockingQueue<Event> queue;
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private volatile boolean closed = false;
+    private final AtomicInteger maxQueueDepth = new AtomicInteger(0);
+    private final AtomicLong queuedCount = new AtomicLong(0);
+    private final AtomicLong processedCount = new AtomicLong(0);
+    private final AtomicLong droppedCount = new AtomicLong(0);
+
+    private final Runnable drain = new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            drainQueue();
+        }
+    };
+
+    public AsyncEventListener(IEventListener handler, String name, Policy policy, int queueSize)
+    {
+        this.handler = handler;
+        this.name = name;
+        this.policy = policy;
+        this.queue = new ArrayBlockingQueue<Event>(Math.max(queueSize, 1));
+    }
+
+    @Override
+    public void invoke(Event event)
+    {
+        if (closed)
+        {
+            return;
+        }
+
+        if (!enqueue(event))
+        {
+            droppedCount.incrementAndGet();
+            return;
+        }
+        queuedCount.incrementAndGet();
+
+        int depth = queue.size();
+        int max = maxQueueDepth.get();
+        while (depth > max && !maxQueueDepth.compareAndSet(max, depth))
+        {
+            max = maxQueueDepth.get();
+        }
+
+        if (scheduled.compareAndSet(false, true))
+        {
+            getPool().execute(drain);
+        }
+    }
+
+    private boolean enqueue(Event event)
+    {
+        switch (policy)
+        {
+            case BLOCK:
+                try
+                {
+                    queue.put(event);
+                    return true;
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            case COALESCE:
+                while (!queue.offer(event))
+                {
+                    if (queue.poll() != null)
+                    {
+                        droppedCount.incrementAndGet();
+                    }
+                }
+                return true;
+            default:
+                return queue.offer(event);
+        }
+    }
+
+    private void drainQueue()
+    {
+        while (true)
+        {
+            if (closed)
+            {
+                discardQueue();
+                return;
+            }
+
+            Event event = queue.poll();
+            if (event == null)
+            {
+                scheduled.set(false);
+                // Something may have been queued after the poll, but before scheduled was cleared
+                if (queue.isEmpty() || !scheduled.compareAndSet(false, true))
+                {
+                    return;
+                }
+                continue;
+            }
+
+            try
+            {
+                handler.invoke(event);
+            }
+            catch (Throwable e)
+            {
+                e.printStackTrace();
+            }
+            processedCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Stops delivering events to the listener, called when it is unregistered.
+     * The events still waiting in the queue are discarded, and counted as dropped.
+     * A event that a worker is already delivering is allowed to finish.
+     */
+    void close()
+    {
+        closed = true;
+        discardQueue();
+    }
+
+    private void discardQueue()
+    {
+        while (queue.poll() != null)
+        {
+            droppedCount.incrementAndGet();
+        }
+    }
+
+    public boolean isClosed()
+    {
+        return closed;
+    }
+
+    /**
+     * @return A description of the wrapped listener
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    public Policy getPolicy()
+    {
+        return policy;
+    }
+
+    /**
+     * @return The number of events currently waiting to be processed
+     */
+    public int getQueueDepth()
+    {
+        return queue.size();
+    }
+
+    /**
+     * @return The largest number of events that have been waiting at once
+     */
+    public int getMaxQueueDepth()
+    {
+        return maxQueueDepth.get();
+    }
+
+    /**
+     * @return The capacity of this listener's queue
+     */
+    public int getQueueCapacity()
+    {
+        return queue.size() + queue.remainingCapacity();
+    }
+
+    public long getQueuedCount()
+    {
+        return queuedCount.get();
+    }
+
+    public long getProcessedCount()
+    {
+        return processedCount.get();
+    }
+
+    /**
+     * @return The number of events discarded because the queue was full
+     */
+    public long getDroppedCount()
+    {
+        return droppedCount.get();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s [%s, depth %d/%d, max %d, processed %d, dropped %d]", name, policy, getQueueDepth(), getQueueCapacity(), getMaxQueueDepth(), getProcessedCount(), getDroppedCount());
+    }
+
+    /**
+     * Sets the number of worker threads shared by all async listeners.
+     *
+     * @param count The new thread count, at least 1
+     */
+    public static synchronized void setThreadCount(int count)
+    {
+        threadCount = Math.max(count, 1);
+        if (pool != null)
+        {
+            if (threadCount > pool.getMaximumPoolSize())
+            {
+                pool.setMaximumPoolSize(threadCount);
+                pool.setCorePoolSize(threadCount);
+            }
+            else
+            {
+                pool.setCorePoolSize(threadCount);
+                pool.setMaximumPoolSize(threadCount);
+            }
+        }
+    }
+
+    private static synchronized ThreadPoolExecutor getPool()
+    {
+        if (pool == null)
+        {
+            ThreadFactory factory = new ThreadFactory()
+            {
+                private final AtomicInteger count = new AtomicInteger(0);
+
+                @Override
+                public Thread newThread(Runnable task)
+                {
+                    Thread thread = new Thread(task, "Forge Async Event Thread #" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            };
+            // Each listener has at most one drain task waiting, so the work queue is bounded by the listener count
+            pool = new ThreadPoolExecutor(threadCount, threadCount, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), factory);
+        }
+        return pool;
+    }
+}
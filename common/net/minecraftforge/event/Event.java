@@ -3,8 +3,11 @@ package net.minecraftforge.event;
 import static java.lang.annotation.ElementType.TYPE;
 import static java.lang.annotation.RetentionPolicy.RUNTIME;
 
+import java.lang.annotation.Annotation;
+import java.lang.annotation.Inherited;
 import java.lang.annotation.Retention;
 import java.lang.annotation.Target;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
@@ -16,6 +19,18 @@ public class Event
     @Target(value = TYPE)
     public @interface HasResult{}
 
+    /**
+     * Marks a event that can be delivered to listeners registered with {@link ForgeSubscribe#async()}.
+     * Async listeners are queued after every other listener has run, so only use it on events whose
+     * fields are final, and whose referenced objects are not changed once the post returns, or are
+     * documented as only safe to read in part, such as the coordinates of a chunk. Subclasses inherit
+     * the marker, so they must follow the same rule.
+     */
+    @Retention(value = RUNTIME)
+    @Target(value = TYPE)
+    @Inherited
+    public @interface AsyncSafe{}
+
     public enum Result
     {
         DENY,
@@ -24,30 +39,67 @@ public class Event
     }
 
     private boolean isCanceled = false;
-    private final boolean isCancelable;
     private Result result = Result.DEFAULT;
-    private final boolean hasResult;
     private static ListenerList listeners = new ListenerList();
+    private static ConcurrentHashMap<Class<?>, Boolean> cancelableCache = new ConcurrentHashMap<Class<?>, Boolean>();
+    private static ConcurrentHashMap<Class<?>, Boolean> hasResultCache = new ConcurrentHashMap<Class<?>, Boolean>();
     
     public Event()
     {
         setup();
-        isCancelable = hasAnnotation(Cancelable.class);
-        hasResult = hasAnnotation(HasResult.class);
     }
 
-    private boolean hasAnnotation(Class annotation)
+    /**
+     * Determines if the specified event class, or any of its parents, has the annotation.
+     * The result is cached per class, so the hierarchy is only walked once.
+     * 
+     * Events processed by the EventTransformer override isCancelable and hasResult
+     * with constants for their own class, this is used for events that are not, 
+     * including untransformed subclasses of transformed events.
+     */
+    private static boolean hasAnnotation(ConcurrentHashMap<Class<?>, Boolean> cache, Class<?> eventType, Class<? extends Annotation> annotation)
     {
-        Class cls = this.getClass();
-        while (cls != Event.class)
+        Boolean ret = cache.get(eventType);
+        if (ret == null)
         {
-            if (cls.isAnnotationPresent(Cancelable.class))
+            ret = false;
+            Class<?> cls = eventType;
+            while (cls != Event.class)
             {
-                return true;
+                if (cls.isAnnotationPresent(annotation))
+                {
+                    ret = true;
+                    break;
+                }
+                cls = cls.getSuperclass();
             }
-            cls = cls.getSuperclass();
+            cache.put(eventType, ret);
         }
-        return false;
+        return ret;
+    }
+
+    /**
+     * Returns the ListenerList of the base Event class, without needing a instance.
+     */
+    static ListenerList getRootListenerList()
+    {
+        return listeners;
+    }
+
+    /**
+     * Determines if events of the specified type are cancelable, without needing a instance.
+     */
+    static boolean isCancelable(Class<?> eventType)
+    {
+        return hasAnnotation(cancelableCache, eventType, Cancelable.class);
+    }
+
+    /**
+     * Determines if events of the specified type can be delivered to async listeners, see {@link AsyncSafe}.
+     */
+    static boolean isAsyncSafe(Class<?> eventType)
+    {
+        return eventType.isAnnotationPresent(AsyncSafe.class);
     }
 
     /**
@@ -56,7 +108,7 @@ public class Event
      */
     public boolean isCancelable()
     {
-        return isCancelable;
+        return hasAnnotation(cancelableCache, getClass(), Cancelable.class);
     }
 
     /**
@@ -90,7 +142,7 @@ public class Event
      */
     public boolean hasResult()
     {
-        return hasResult;
+        return hasAnnotation(hasResultCache, getClass(), HasResult.class);
     }
 
     /**
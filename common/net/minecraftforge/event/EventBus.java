@@ -1,8 +1,12 @@
 package net.minecraftforge.event;
 
 import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -10,75 +14,180 @@ import java.util.concurrent.ConcurrentHashMap;
 
 import com.google.common.reflect.TypeToken;
 
+import cpw.mods.fml.common.Loader;
+import cpw.mods.fml.common.ModContainer;
+
 public class EventBus
 {
     private static int maxID = 0;
+    private static ConcurrentHashMap<Class<?>, ListenerList> eventLists = new ConcurrentHashMap<Class<?>, ListenerList>();
+    private static ConcurrentHashMap<Class<?>, Method[]> subscribers = new ConcurrentHashMap<Class<?>, Method[]>();
     
     private ConcurrentHashMap<Object, ArrayList<IEventListener>> listeners = new ConcurrentHashMap<Object, ArrayList<IEventListener>>();
-    private final int busID = maxID++;
+    private final int busID = nextID();
+    private volatile boolean compiledDispatch = false;
+    private final EventProfiler profiler = new EventProfiler();
+    private volatile boolean profiling = false;
 
     public EventBus()
     {
         ListenerList.resize(busID + 1);
     }
+
+    private static synchronized int nextID()
+    {
+        return maxID++;
+    }
+    
+    /**
+     * Enables or disables compiled dispatch for this bus.
+     * When enabled each event's listeners are invoked through a single generated 
+     * class, see {@link ASMEventDispatcher}, instead of a loop over the listener array.
+     * 
+     * @param compiled True to use generated dispatchers
+     */
+    public void setCompiledDispatch(boolean compiled)
+    {
+        compiledDispatch = compiled;
+    }
+    
+    /**
+     * Enables or disables per listener timing for this bus.
+     * While disabled the listeners are invoked directly, so there is no overhead.
+     * 
+     * @param enabled True to time every listener invocation
+     */
+    public void setProfiling(boolean enabled)
+    {
+        profiling = enabled;
+        ListenerList.setProfiler(busID, enabled ? profiler : null);
+    }
+
+    public boolean isProfiling()
+    {
+        return profiling;
+    }
+
+    /**
+     * Returns the profiler for this bus, it holds the invocation counts and timings
+     * collected for each listener while profiling is enabled.
+     */
+    public EventProfiler getProfiler()
+    {
+        return profiler;
+    }
     
     public void register(Object target)
     {
-        Set<? extends Class<?>> supers = TypeToken.of(target.getClass()).getTypes().rawTypes();
-        for (Method method : target.getClass().getMethods())
+        for (Method method : getSubscribers(target.getClass()))
+        {
+            register(method.getParameterTypes()[0], target, method);
+        }
+    }
+
+    /**
+     * Finds the public methods of the class that are annotated with @ForgeSubscribe,
+     * either directly or on the method they override. The result is cached per class,
+     * so registering more instances of the same class does not scan it again.
+     */
+    private static Method[] getSubscribers(Class<?> cls)
+    {
+        Method[] ret = subscribers.get(cls);
+        if (ret != null)
         {
-            for (Class<?> cls : supers)
+            return ret;
+        }
+
+        Set<String> annotated = new HashSet<String>();
+        for (Class<?> sup : TypeToken.of(cls).getTypes().rawTypes())
+        {
+            for (Method real : sup.getDeclaredMethods())
             {
-                try
+                if (real.isAnnotationPresent(ForgeSubscribe.class))
                 {
-                    Method real = cls.getDeclaredMethod(method.getName(), method.getParameterTypes());
-                    if (real.isAnnotationPresent(ForgeSubscribe.class))
-                    {
-                        Class<?>[] parameterTypes = method.getParameterTypes();
-                        if (parameterTypes.length != 1)
-                        {
-                            throw new IllegalArgumentException(
-                                "Method " + method + " has @ForgeSubscribe annotation, but requires " + parameterTypes.length +
-                                " arguments.  Event handler methods must require a single argument."
-                            );
-                        }
-                        
-                        Class<?> eventType = parameterTypes[0];
-                        
-                        if (!Event.class.isAssignableFrom(eventType))
-                        {
-                            throw new IllegalArgumentException("Method " + method + " has @ForgeSubscribe annotation, but takes a argument that is not a Event " + eventType); 
-                        }
-                                                
-                        register(eventType, target, method);
-                        break;
-                    }
+                    annotated.add(getSignature(real));
                 }
-                catch (NoSuchMethodException e)
+            }
+        }
+
+        ArrayList<Method> found = new ArrayList<Method>();
+        if (!annotated.isEmpty())
+        {
+            for (Method method : cls.getMethods())
+            {
+                if (!annotated.contains(getSignature(method)))
+                {
+                    continue;
+                }
+
+                Class<?>[] parameterTypes = method.getParameterTypes();
+                if (parameterTypes.length != 1)
                 {
-                    ;
+                    throw new IllegalArgumentException(
+                        "Method " + method + " has @ForgeSubscribe annotation, but requires " + parameterTypes.length +
+                        " arguments.  Event handler methods must require a single argument."
+                    );
                 }
+                
+                Class<?> eventType = parameterTypes[0];
+                
+                if (!Event.class.isAssignableFrom(eventType))
+                {
+                    throw new IllegalArgumentException("Method " + method + " has @ForgeSubscribe annotation, but takes a argument that is not a Event " + eventType); 
+                }
+                found.add(method);
             }
         }
+
+        ret = found.toArray(new Method[found.size()]);
+        subscribers.put(cls, ret);
+        return ret;
+    }
+
+    private static String getSignature(Method method)
+    {
+        StringBuilder ret = new StringBuilder(method.getName()).append('(');
+        for (Class<?> param : method.getParameterTypes())
+        {
+            ret.append(param.getName()).append(';');
+        }
+        return ret.append(')').toString();
     }
 
     private void register(Class<?> eventType, Object target, Method method)
     {
         try
         {
-            Constructor<?> ctr = eventType.getConstructor();
-            ctr.setAccessible(true);
-            Event event = (Event)ctr.newInstance();
-            ASMEventHandler listener = new ASMEventHandler(target, method);
-            event.getListenerList().register(busID, listener.getPriority(), listener);
+            ASMEventHandler handler = new ASMEventHandler(target, method);
+            IEventListener listener = handler;
+            ForgeSubscribe subInfo = handler.getSubInfo();
+            if (subInfo.async())
+            {
+                if (Event.isCancelable(eventType))
+                {
+                    throw new IllegalArgumentException("Method " + method + " has a async @ForgeSubscribe annotation, but " + eventType + " is cancelable.");
+                }
+                if (!Event.isAsyncSafe(eventType))
+                {
+                    throw new IllegalArgumentException("Method " + method + " has a async @ForgeSubscribe annotation, but " + eventType + " is not marked @Event.AsyncSafe.");
+                }
+                listener = new AsyncEventListener(handler, method.toString(), subInfo.asyncPolicy(), subInfo.asyncQueueSize());
+            }
+            profiler.track(listener, getActiveModId(), method.toString());
 
-            ArrayList<IEventListener> others = listeners.get(target); 
-            if (others == null)
+            // Held so a concurrent unregister of the target can not miss this listener
+            synchronized (listeners)
             {
-                others = new ArrayList<IEventListener>();
-                listeners.put(target, others);
+                getListenerList(eventType).register(busID, handler.getPriority(), listener);
+
+                ArrayList<IEventListener> others = listeners.get(target); 
+                if (others == null)
+                {
+                    others = new ArrayList<IEventListener>();
+                    listeners.put(target, others);
+                }
+                others.add(listener);
             }
-            others.add(listener);
         }
         catch (Exception e)
         {
@@ -88,19 +197,159 @@ public class EventBus
 
     public void unregister(Object object)
     {
-        ArrayList<IEventListener> list = listeners.remove(object);
-        for (IEventListener listener : list)
+        synchronized (listeners)
         {
-            ListenerList.unregiterAll(busID, listener);
+            ArrayList<IEventListener> list = listeners.remove(object);
+            if (list == null)
+            {
+                return;
+            }
+            for (IEventListener listener : list)
+            {
+                ListenerList.unregiterAll(busID, listener);
+                profiler.untrack(listener);
+                if (listener instanceof AsyncEventListener)
+                {
+                    ((AsyncEventListener)listener).close();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Determines if anything is listening for the specified event on this bus,
+     * including listeners registered to any of its parent events.
+     * 
+     * Hooks for frequently fired events can use this to avoid constructing 
+     * the event at all when the post would be a no-op.
+     * 
+     * @param eventType The event class that would be posted
+     * @return True if posting a event of that type would invoke at least one listener
+     */
+    public boolean hasListeners(Class<? extends Event> eventType)
+    {
+        return getListenerList(eventType).getListeners(busID).length > 0;
+    }
+
+    private static String getActiveModId()
+    {
+        ModContainer mod = Loader.instance().activeModContainer();
+        return (mod == null ? "Unknown" : mod.getModId());
+    }
+
+    /**
+     * Returns the ListenerList for the specified event type, without creating a instance of it.
+     */
+    private static ListenerList getListenerList(Class<?> eventType)
+    {
+        ListenerList list = eventLists.get(eventType);
+        if (list == null)
+        {
+            synchronized (eventLists)
+            {
+                list = eventLists.get(eventType);
+                if (list == null)
+                {
+                    list = findListenerList(eventType);
+                    eventLists.put(eventType, list);
+                }
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Locates the list through the LISTENER_LIST field added by the EventTransformer.
+     * If it has not been set up yet it is created here, the same way the generated 
+     * setup() would, so that later instances will find and use it. Both hold the lock 
+     * of the event class while they check and set the field, so a event constructed on 
+     * another thread can not create a second list.
+     * 
+     * Events that set up their own list are instead constructed once to reach it.
+     */
+    private static ListenerList findListenerList(Class<?> eventType)
+    {
+        if (eventType == Event.class)
+        {
+            return Event.getRootListenerList();
+        }
+
+        try
+        {
+            Field field = null;
+            try
+            {
+                field = eventType.getDeclaredField("LISTENER_LIST");
+            }
+            catch (NoSuchFieldException e)
+            {
+            }
+
+            if (field != null && Modifier.isStatic(field.getModifiers()) && field.getType() == ListenerList.class)
+            {
+                field.setAccessible(true);
+                ListenerList parent = getListenerList(eventType.getSuperclass());
+                synchronized (eventType)
+                {
+                    ListenerList list = (ListenerList)field.get(null);
+                    if (list == null)
+                    {
+                        list = new ListenerList(parent);
+                        field.set(null, list);
+                    }
+                    return list;
+                }
+            }
+
+            Constructor<?> ctr = eventType.getConstructor();
+            ctr.setAccessible(true);
+            Event event = (Event)ctr.newInstance();
+            return event.getListenerList();
+        }
+        catch (Exception e)
+        {
+            throw new RuntimeException("Unable to get the listener list of " + eventType.getName(), e);
         }
     }
     
+    /**
+     * Returns all listeners on this bus that were registered with {@link ForgeSubscribe#async()},
+     * they can be queried for their queue depths and drop counts.
+     * 
+     * @return A new list containing the async listeners
+     */
+    public List<AsyncEventListener> getAsyncListeners()
+    {
+        List<AsyncEventListener> ret = new ArrayList<AsyncEventListener>();
+        synchronized (listeners)
+        {
+            for (ArrayList<IEventListener> list : listeners.values())
+            {
+                for (IEventListener listener : list)
+                {
+                    if (listener instanceof AsyncEventListener)
+                    {
+                        ret.add((AsyncEventListener)listener);
+                    }
+                }
+            }
+        }
+        return ret;
+    }
+    
     public boolean post(Event event)
     {
-        IEventListener[] listeners = event.getListenerList().getListeners(busID);
-        for (IEventListener listener : listeners)
+        if (compiledDispatch)
         {
-            listener.invoke(event);
+            event.getListenerList().getDispatcher(busID).invoke(event);
+        }
+        else
+        {
+            IEventListener[] listeners = event.getListenerList().getListeners(busID);
+            for (IEventListener listener : listeners)
+            {
+                listener.invoke(event);
+            }
         }
         return (event.isCancelable() ? event.isCanceled() : false);
     }
@@ -0,0 +1,202 @@
+package net.minecraftforge.event;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps invocation counts and timings for the listeners of a single EventBus.
+ *
+ * Listeners are always tracked, which only records who owns them, but they are only
+ * timed while profiling is enabled on the bus. While it is disabled the ListenerList
+ * publishes the plain listeners, so posting pays nothing for this.
+ */
+public class EventProfiler
+{
+    private final ConcurrentHashMap<IEventListener, ListenerStats> stats = new ConcurrentHashMap<IEventListener, ListenerStats>();
+
+    public static class ListenerStats
+    {
+        private final String owner;
+        private final String name;
+        private final AtomicLong count = new AtomicLong(0);
+        private final AtomicLong totalNanos = new AtomicLong(0);
+        private final AtomicLong maxNanos = new AtomicLong(0);
+        private volatile IEventListener wrapper;
+
+        private ListenerStats(String owner, String name)
+        {
+            this.owner = owner;
+            this.name = name;
+        }
+
+        private void record(long nanos)
+        {
+            count.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+            long max = maxNanos.get();
+            while (nanos > max && !maxNanos.compareAndSet(max, nanos))
+            {
+                max = maxNanos.get();
+            }
+        }
+
+        private void reset()
+        {
+            count.set(0);
+            totalNanos.set(0);
+            maxNanos.set(0);
+        }
+
+        /**
+         * @return The mod id of the mod that was loading when the listener was registered
+         */
+        public String getOwner()
+        {
+            return owner;
+        }
+
+        /**
+         * @return A description of the listener, normally the handler method
+         */
+        public String getName()
+        {
+            return name;
+        }
+
+        public long getInvocationCount()
+        {
+            return count.get();
+        }
+
+        public long getTotalNanos()
+        {
+            return totalNanos.get();
+        }
+
+        public long getMaxNanos()
+        {
+            return maxNanos.get();
+        }
+    }
+
+    private static class ProfilingEventListener implements IEventListener
+    {
+        private final IEventListener listener;
+        private final ListenerStats stats;
+
+        private ProfilingEventListener(IEventListener listener, ListenerStats stats)
+        {
+            this.listener = listener;
+            this.stats = stats;
+        }
+
+        @Override
+        public void invoke(Event event)
+        {
+            long start = System.nanoTime();
+            try
+            {
+                listener.invoke(event);
+            }
+            finally
+            {
+                stats.record(System.nanoTime() - start);
+            }
+        }
+    }
+
+    void track(IEventListener listener, String owner, String name)
+    {
+        stats.put(listener, new ListenerStats(owner, name));
+    }
+
+    void untrack(IEventListener listener)
+    {
+        stats.remove(listener);
+    }
+
+    /**
+     * Returns the timed wrapper for the listener, the same wrapper is returned every time
+     * so the timings survive the listener arrays being rebuilt.
+     */
+    IEventListener wrap(IEventListener listener)
+    {
+        ListenerStats info = stats.get(listener);
+        if (info == null)
+        {
+            info = new ListenerStats("Unknown", listener.toString());
+            ListenerStats old = stats.putIfAbsent(listener, info);
+            info = (old == null ? info : old);
+        }
+
+        IEventListener ret = info.wrapper;
+        if (ret == null)
+        {
+            ret = new ProfilingEventListener(listener, info);
+            info.wrapper = ret;
+        }
+        return ret;
+    }
+
+    /**
+     * @return The stats of all listeners on the bus, ordered by total time spent, highest first
+     */
+    public List<ListenerStats> getStats()
+    {
+        List<ListenerStats> ret = new ArrayList<ListenerStats>(stats.values());
+        Collections.sort(ret, new Comparator<ListenerStats>()
+        {
+            @Override
+            public int compare(ListenerStats o1, ListenerStats o2)
+            {
+                long a = o1.getTotalNanos();
+                long b = o2.getTotalNanos();
+                return (a < b ? 1 : (a == b ? 0 : -1));
+            }
+        });
+        return ret;
+    }
+
+    /**
+     * Resets the counts and timings of every listener.
+     */
+    public void reset()
+    {
+        for (ListenerStats info : stats.values())
+        {
+            info.reset();
+        }
+    }
+
+    /**
+     * Writes a human readable report of the listener timings.
+     *
+     * @param out The writer to print to
+     * @param title The heading for this bus
+     */
+    public void writeReport(PrintWriter out, String title)
+    {
+        out.println(title);
+        out.println(String.format("%-20s %12s %14s %12s %12s  %s", "Owner", "Calls", "Total (ms)", "Avg (us)", "Max (us)", "Listener"));
+        for (ListenerStats info : getStats())
+        {
+            long count = info.getInvocationCount();
+            if (count == 0)
+            {
+                continue;
+            }
+            out.println(String.format("%-20s %12d %14.3f %12.3f %12.3f  %s",
+                    info.getOwner(), count,
+                    info.getTotalNanos() / 1000000.0D,
+                    info.getTotalNanos() / 1000.0D / count,
+                    info.getMaxNanos() / 1000.0D,
+                    info.getName()));
+        }
+        out.println();
+    }
+}
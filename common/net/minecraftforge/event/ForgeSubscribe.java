@@ -12,4 +12,13 @@ public @interface ForgeSubscribe
 {
     public EventPriority priority() default EventPriority.NORMAL;
     public boolean receiveCanceled() default false;
+
+    /**
+     * Deliver events to this listener on a worker thread instead of the posting thread,
+     * see {@link AsyncEventListener}. Only allowed for events that are not cancelable, 
+     * and are marked with {@link Event.AsyncSafe}.
+     */
+    public boolean async() default false;
+    public AsyncEventListener.Policy asyncPolicy() default AsyncEventListener.Policy.DROP;
+    public int asyncQueueSize() default 1024;
 }
@@ -3,77 +3,128 @@ package net.minecraftforge.event;
 import java.util.*;
 
 
+/**
+ * Holds the listeners of a single event class, for every EventBus.
+ * 
+ * Posting only ever reads the volatile, immutable listener arrays, and so never locks.
+ * Everything that changes the lists, registering, unregistering, resizing and
+ * profiling, is serialized on a single lock shared by every ListenerList, as a
+ * change to one list has to rebuild the arrays of all of its children.
+ */
 public class ListenerList
 {
-    private static ArrayList<ListenerList> allLists = new ArrayList<ListenerList>();
+    private static final Object lock = new Object();
+    private static final ArrayList<ListenerList> allLists = new ArrayList<ListenerList>();
     private static int maxSize = 0;
+    private static EventProfiler[] profilers = new EventProfiler[0];
     
     private ListenerList parent;
-    private ListenerListInst[] lists = new ListenerListInst[0];
+    private volatile ListenerListInst[] lists = new ListenerListInst[0];
     
     public ListenerList()
     {
-        allLists.add(this);
-        resizeLists(maxSize);
+        synchronized (lock)
+        {
+            allLists.add(this);
+            resizeLists(maxSize);
+        }
     }
     
     public ListenerList(ListenerList parent)
     {
-        allLists.add(this);
-        this.parent = parent;
-        resizeLists(maxSize);
+        synchronized (lock)
+        {
+            allLists.add(this);
+            this.parent = parent;
+            resizeLists(maxSize);
+        }
     }
     
     public static void resize(int max)
     {
-        if (max <= maxSize)
+        synchronized (lock)
         {
-            return;
-        }
-        for (ListenerList list : allLists)
-        {
-            list.resizeLists(max);
+            if (max <= maxSize)
+            {
+                return;
+            }
+            for (ListenerList list : allLists)
+            {
+                list.resizeLists(max);
+            }
+            maxSize = max;
         }
-        maxSize = max;
     }
     
     public void resizeLists(int max)
     {
-        if (parent != null)
-        {
-            parent.resizeLists(max);
-        }
-        
-        if (lists.length >= max)
-        {
-            return;
-        }
-        
-        ListenerListInst[] newList = new ListenerListInst[max];
-        int x = 0;
-        for (; x < lists.length; x++)
-        {
-            newList[x] = lists[x];
-        }
-        for(; x < max; x++)
+        synchronized (lock)
         {
             if (parent != null)
             {
-                newList[x] = new ListenerListInst(parent.getInstance(x));
+                parent.resizeLists(max);
             }
-            else
+            
+            if (lists.length >= max)
             {
-                newList[x] = new ListenerListInst();
+                return;
             }
+            
+            ListenerListInst[] newList = new ListenerListInst[max];
+            int x = 0;
+            for (; x < lists.length; x++)
+            {
+                newList[x] = lists[x];
+            }
+            for(; x < max; x++)
+            {
+                if (parent != null)
+                {
+                    newList[x] = new ListenerListInst(x, parent.getInstance(x));
+                }
+                else
+                {
+                    newList[x] = new ListenerListInst(x);
+                }
+            }
+            lists = newList;
         }
-        lists = newList;
     }
     
     public static void clearBusID(int id)
     {
-        for (ListenerList list : allLists)
+        synchronized (lock)
         {
-            list.lists[id].dispose();
+            for (ListenerList list : allLists)
+            {
+                list.lists[id].dispose();
+            }
+        }
+    }
+    
+    /**
+     * Sets the profiler for the specified bus, while a profiler is set every listener
+     * on that bus is published wrapped in a timing listener from the profiler.
+     * 
+     * @param id The bus ID
+     * @param profiler The profiler to use, or null to disable profiling
+     */
+    public static void setProfiler(int id, EventProfiler profiler)
+    {
+        synchronized (lock)
+        {
+            if (profilers.length <= id)
+            {
+                profilers = Arrays.copyOf(profilers, id + 1);
+            }
+            profilers[id] = profiler;
+            for (ListenerList list : allLists)
+            {
+                if (list.parent == null)
+                {
+                    list.lists[id].buildCache();
+                }
+            }
         }
     }
     
@@ -86,34 +137,55 @@ public class ListenerList
     {
         return lists[id].getListeners();
     }
+
+    /**
+     * Returns a single listener that invokes all listeners of the specified bus,
+     * see {@link ASMEventDispatcher}.
+     */
+    public IEventListener getDispatcher(int id)
+    {
+        return lists[id].getDispatcher();
+    }
     
     public void register(int id, EventPriority priority, IEventListener listener)
     {
-        lists[id].register(priority, listener);
+        synchronized (lock)
+        {
+            lists[id].register(priority, listener);
+        }
     }
     
     public void unregister(int id, IEventListener listener)
     {
-        lists[id].unregister(listener);
+        synchronized (lock)
+        {
+            lists[id].unregister(listener);
+        }
     }
     
     public static void unregiterAll(int id, IEventListener listener)
     {
-        for (ListenerList list : allLists)
+        synchronized (lock)
         {
-            list.unregister(id, listener);
+            for (ListenerList list : allLists)
+            {
+                list.unregister(id, listener);
+            }
         }
     }
     
     private class ListenerListInst
     {
-        private boolean rebuild = true;
-        private IEventListener[] listeners;
+        private volatile IEventListener[] listeners = new IEventListener[0];
+        private volatile IEventListener dispatcher;
         private ArrayList<ArrayList<IEventListener>> priorities;
+        private ArrayList<ListenerListInst> children = new ArrayList<ListenerListInst>();
         private ListenerListInst parent;
+        private final int id;
         
-        private ListenerListInst()
+        private ListenerListInst(int id)
         {
+            this.id = id;
             int count = EventPriority.values().length;
             priorities = new ArrayList<ArrayList<IEventListener>>(count);
             
@@ -130,14 +202,18 @@ public class ListenerList
                 listeners.clear();
             }
             priorities.clear();
+            children.clear();
             parent = null;
-            listeners = null;
+            listeners = new IEventListener[0];
+            dispatcher = null;
         }
 
-        private ListenerListInst(ListenerListInst parent)
+        private ListenerListInst(int id, ListenerListInst parent)
         {
-            this();
+            this(id);
             this.parent = parent;
+            parent.children.add(this);
+            buildCache();
         }
         
         /**
@@ -165,51 +241,104 @@ public class ListenerList
          * 
          * List is returned in proper priority order.
          * 
-         * Automatically rebuilds the internal Array cache if its information is out of date.
+         * The returned Array is an immutable snapshot, it is replaced rather than
+         * modified whenever this list or one of its parents changes, so it is safe
+         * to iterate without any further checks.
          * 
          * @return Array containing listeners
          */
         public IEventListener[] getListeners()
         {
-            if (shouldRebuild()) buildCache();
             return listeners;
         }
-        
-        protected boolean shouldRebuild()
+
+        /**
+         * Returns the compiled dispatcher for the current listeners,
+         * generating it if the listeners have changed since it was last built.
+         * 
+         * @return Listener that invokes every listener in proper priority order
+         */
+        public IEventListener getDispatcher()
         {
-            return rebuild || (parent != null && parent.shouldRebuild());
+            IEventListener ret = dispatcher;
+            if (ret == null)
+            {
+                synchronized (this)
+                {
+                    ret = dispatcher;
+                    if (ret == null)
+                    {
+                        ret = ASMEventDispatcher.create(listeners);
+                        dispatcher = ret;
+                    }
+                }
+            }
+            return ret;
         }
         
         /**
-         * Rebuild the local Array of listeners, returns early if there is no work to do.
+         * Rebuild the local Array of listeners, and then the Arrays of every child 
+         * list, as they include the listeners registered to this one.
+         * 
+         * Must only be called while holding the ListenerList lock.
          */
         private void buildCache()
-        {        
-            if(parent != null && parent.shouldRebuild())
-            {
-                parent.buildCache();
-            }
-            
+        {
             ArrayList<IEventListener> ret = new ArrayList<IEventListener>();
+            ArrayList<IEventListener> async = new ArrayList<IEventListener>();
             for (EventPriority value : EventPriority.values())
             {
-                ret.addAll(getListeners(value));
+                for (IEventListener listener : getListeners(value))
+                {
+                    if (listener instanceof AsyncEventListener)
+                    {
+                        async.add(listener);
+                    }
+                    else
+                    {
+                        ret.add(listener);
+                    }
+                }
+            }
+            // Async listeners only queue the event, so the listeners after them could still change it
+            ret.addAll(async);
+
+            EventProfiler profiler = (id < profilers.length ? profilers[id] : null);
+            if (profiler != null)
+            {
+                for (int x = 0; x < ret.size(); x++)
+                {
+                    ret.set(x, profiler.wrap(ret.get(x)));
+                }
+            }
+            synchronized (this)
+            {
+                listeners = ret.toArray(new IEventListener[ret.size()]);
+                dispatcher = null;
+            }
+
+            for (ListenerListInst child : children)
+            {
+                child.buildCache();
             }
-            listeners = ret.toArray(new IEventListener[ret.size()]);
-            rebuild = false;
         }
         
         public void register(EventPriority priority, IEventListener listener)
         {
             priorities.get(priority.ordinal()).add(listener);
-            rebuild = true;
+            buildCache();
         }
         
         public void unregister(IEventListener listener)
         {
+            boolean removed = false;
             for(ArrayList<IEventListener> list : priorities)
             {
-                list.remove(listener);
+                removed |= list.remove(listener);
+            }
+            if (removed)
+            {
+                buildCache();
             }
         }
     }
@@ -2,6 +2,7 @@ package net.minecraftforge.event.world;
 
 import net.minecraft.world.chunk.Chunk;
 import net.minecraft.nbt.NBTTagCompound;
+import net.minecraftforge.event.Event;
 
 public class ChunkDataEvent extends ChunkEvent
 {
@@ -26,6 +27,11 @@ public class ChunkDataEvent extends ChunkEvent
         }
     }
 
+    /**
+     * Posted before the chunk's NBT is queued to be written, it is only read from then on. The event
+     * can be delivered to async listeners, which may read the NBT, but of the chunk only its coordinates.
+     */
+    @Event.AsyncSafe
     public static class Save extends ChunkDataEvent
     {
         public Save(Chunk chunk, NBTTagCompound data)
@@ -6,6 +6,11 @@ import net.minecraft.server.management.PlayerInstance;
 import net.minecraft.world.WorldServer;
 import net.minecraftforge.event.Event;
 
+/**
+ * Posted when a player starts or stops watching a chunk. The event can be delivered to async listeners,
+ * which may read the chunk coordinates, but of the player only its username and entity ID.
+ */
+@Event.AsyncSafe
 public class ChunkWatchEvent extends Event
 {
     public final ChunkCoordIntPair chunk;
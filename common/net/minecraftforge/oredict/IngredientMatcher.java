@@ -0,0 +1,186 @@
+package net.minecraftforge.oredict;
+
+import java.util.Arrays;
+import java.util.List;
+
+import net.minecraft.item.ItemStack;
+
+/**
+ * A single ingredient of an ore recipe, either an ItemStack or an ore list, compiled so
+ * matching a stack against it is a couple of array lookups.
+ *
+ * An ore list is compiled into a sorted array of the item ID and damage pairs it holds, and a sorted
+ * array of the item IDs it holds with a damage of -1. The ore lists are the live lists of the
+ * OreDictionary, so they are compiled again when the list counts a change, or for any other list when its size
+ * or the OreDictionary's registration count changes.
+ *
+ * The inputs of a recipe are live as well, mods may replace them through getInput, so a recipe compiles its
+ * matchers again when isCompiledFrom finds they were not compiled from its current inputs.
+ */
+class IngredientMatcher
+{
+    private static class Compiled
+    {
+        private final int stamp;
+        private final int registrations;
+        private final long[] exact;
+        private final int[] wildcard;
+
+        private Compiled(int stamp, int registrations, long[] exact, int[] wildcard)
+        {
+            this.stamp = stamp;
+            this.registrations = registrations;
+            this.exact = exact;
+            this.wildcard = wildcard;
+        }
+    }
+
+    private final Object input;
+    private final ItemStack stack;
+    private final List<ItemStack> ores;
+    private volatile Compiled compiled;
+
+    @SuppressWarnings("unchecked")
+    IngredientMatcher(Object input)
+    {
+        this.input = input;
+        if (input instanceof ItemStack)
+        {
+            stack = (ItemStack)input;
+            ores = null;
+        }
+        else
+        {
+            stack = null;
+            ores = (List<ItemStack>)input;
+        }
+    }
+
+    /**
+     * @return The matchers for the inputs, null where the input is null
+     */
+    static IngredientMatcher[] compile(Object[] inputs)
+    {
+        IngredientMatcher[] ret = new IngredientMatcher[inputs.length];
+        for (int x = 0; x < inputs.length; x++)
+        {
+            if (inputs[x] != null)
+            {
+                ret[x] = new IngredientMatcher(inputs[x]);
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * @return True if each matcher was compiled from the input in the same position
+     */
+    static boolean isCompiledFrom(IngredientMatcher[] matchers, Object[] inputs)
+    {
+        if (matchers.length != inputs.length)
+        {
+            return false;
+        }
+        for (int x = 0; x < inputs.length; x++)
+        {
+            if (getInput(matchers[x]) != inputs[x])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return True if each matcher was compiled from the input in the same position
+     */
+    static boolean isCompiledFrom(IngredientMatcher[] matchers, List<?> inputs)
+    {
+        if (matchers.length != inputs.size())
+        {
+            return false;
+        }
+        for (int x = 0; x < matchers.length; x++)
+        {
+            if (getInput(matchers[x]) != inputs.get(x))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Object getInput(IngredientMatcher matcher)
+    {
+        return (matcher == null ? null : matcher.input);
+    }
+
+    boolean matches(ItemStack input)
+    {
+        if (input == null)
+        {
+            return false;
+        }
+        if (stack != null)
+        {
+            return stack.itemID == input.itemID && (stack.getItemDamage() == -1 || stack.getItemDamage() == input.getItemDamage());
+        }
+
+        Compiled ret = compiled;
+        if (ret == null || ret.stamp != getStamp(ores) || ret.registrations != OreDictionary.getRegistrationCount())
+        {
+            ret = compileOres();
+            compiled = ret;
+        }
+        return Arrays.binarySearch(ret.wildcard, input.itemID) >= 0 ||
+               Arrays.binarySearch(ret.exact, getKey(input.itemID, input.getItemDamage())) >= 0;
+    }
+
+    private Compiled compileOres()
+    {
+        int stamp = getStamp(ores);
+        int registrations = OreDictionary.getRegistrationCount();
+        ItemStack[] stacks = ores.toArray(new ItemStack[0]);
+        long[] exact = new long[stacks.length];
+        int[] wildcard = new int[stacks.length];
+        int exactCount = 0;
+        int wildcardCount = 0;
+        for (ItemStack ore : stacks)
+        {
+            if (ore == null)
+            {
+                continue;
+            }
+            if (ore.getItemDamage() == -1)
+            {
+                wildcard[wildcardCount++] = ore.itemID;
+            }
+            else
+            {
+                exact[exactCount++] = getKey(ore.itemID, ore.getItemDamage());
+            }
+        }
+        exact = Arrays.copyOf(exact, exactCount);
+        wildcard = Arrays.copyOf(wildcard, wildcardCount);
+        Arrays.sort(exact);
+        Arrays.sort(wildcard);
+        return new Compiled(stamp, registrations, exact, wildcard);
+    }
+
+    /**
+     * @return A value that changes when the ore list changes, every change for an OreList, otherwise the size
+     */
+    static int getStamp(List<?> ores)
+    {
+        if (ores instanceof OreDictionary.OreList)
+        {
+            return ((OreDictionary.OreList)ores).getModCount();
+        }
+        return ores.size();
+    }
+
+    private static long getKey(int itemID, int damage)
+    {
+        return ((long)itemID << 32) | (damage & 0xFFFFFFFFL);
+    }
+}
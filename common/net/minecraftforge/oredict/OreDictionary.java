@@ -1,11 +1,17 @@
 package net.minecraftforge.oredict;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import net.minecraft.block.Block;
 import net.minecraft.item.Item;
@@ -23,6 +29,26 @@ public class OreDictionary
     private static int maxID = 0;
     private static HashMap<String, Integer> oreIDs = new HashMap<String, Integer>();
     private static HashMap<Integer, ArrayList<ItemStack>> oreStacks = new HashMap<Integer, ArrayList<ItemStack>>();
+    private static ArrayList<String> oreNames = new ArrayList<String>();
+
+    /**
+     * The ore IDs registered for each item ID and damage pair, in ascending order, see getStackKey.
+     * Stacks registered with a damage of -1 are under -1, and match any damage.
+     */
+    private static HashMap<Long, int[]> stackOreIDs = new HashMap<Long, int[]>();
+
+    /**
+     * The exact and wildcard ore IDs of the item ID and damage pairs that have both, merged when they are
+     * first looked up. Cleared whenever an ore is registered.
+     */
+    private static ConcurrentHashMap<Long, int[]> stackOreIDCache = new ConcurrentHashMap<Long, int[]>();
+    private static final int[] NO_IDS = new int[0];
+    private static volatile int registrationCount = 0;
+
+    /**
+     * The smallest number of recipes worth handing to another thread when searching for recipes to replace.
+     */
+    private static final int RECIPES_PER_THREAD = 1024;
     
     static {
         initVanillaEntries();
@@ -81,7 +107,18 @@ public class OreDictionary
         }
         hasInit = true;
 
-        ItemStack[] replaceStacks = replacements.keySet().toArray(new ItemStack[replacements.keySet().size()]);
+        // Index the items to replace by item ID, so each ingredient is only compared with the stacks of its own item
+        HashMap<Integer, List<ItemStack>> replaceStacks = new HashMap<Integer, List<ItemStack>>();
+        for (ItemStack stack : replacements.keySet())
+        {
+            List<ItemStack> stacks = replaceStacks.get(stack.itemID);
+            if (stacks == null)
+            {
+                stacks = new ArrayList<ItemStack>();
+                replaceStacks.put(stack.itemID, stacks);
+            }
+            stacks.add(stack);
+        }
 
         // Ignore recipes for the following items
         ItemStack[] exclusions = new ItemStack[]
@@ -91,50 +128,175 @@ public class OreDictionary
         };
 
         List recipes = CraftingManager.getInstance().getRecipeList();
-        List<IRecipe> recipesToRemove = new ArrayList<IRecipe>();
-        List<IRecipe> recipesToAdd = new ArrayList<IRecipe>();
+        final Object[] recipeArray = recipes.toArray();
+        final ReplacementSearch search = new ReplacementSearch(recipeArray, replaceStacks, exclusions);
 
-        // Search vanilla recipes for recipes to replace
-        for(Object obj : recipes)
+        // Search vanilla recipes for recipes to replace, in parallel for large recipe lists
+        int threads = Math.min(Runtime.getRuntime().availableProcessors(), recipeArray.length / RECIPES_PER_THREAD);
+        if (threads < 2)
         {
-            if(obj instanceof ShapedRecipes)
+            search.search(0, recipeArray.length);
+        }
+        else
+        {
+            ExecutorService pool = Executors.newFixedThreadPool(threads, new ThreadFactory()
             {
-                ShapedRecipes recipe = (ShapedRecipes)obj;
-                ItemStack output = recipe.getRecipeOutput();
-                if (output != null && containsMatch(false, exclusions, output))
+                private int count = 0;
+
+                @Override
+                public synchronized Thread newThread(Runnable task)
                 {
-                    continue;
+                    Thread thread = new Thread(task, "Forge Ore Recipe Thread #" + ++count);
+                    thread.setDaemon(true);
+                    return thread;
                 }
-
-                if(containsMatch(true, recipe.recipeItems, replaceStacks))
+            });
+            try
+            {
+                List<Future<?>> tasks = new ArrayList<Future<?>>();
+                int chunk = (recipeArray.length + threads - 1) / threads;
+                for (int start = 0; start < recipeArray.length; start += chunk)
                 {
-                    recipesToRemove.add(recipe);
-                    recipesToAdd.add(new ShapedOreRecipe(recipe, replacements));
+                    final int from = start;
+                    final int to = Math.min(start + chunk, recipeArray.length);
+                    tasks.add(pool.submit(new Runnable()
+                    {
+                        @Override
+                        public void run()
+                        {
+                            search.search(from, to);
+                        }
+                    }));
                 }
+                for (Future<?> task : tasks)
+                {
+                    task.get();
+                }
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+            catch (ExecutionException e)
+            {
+                throw new RuntimeException(e.getCause());
+            }
+            finally
+            {
+                pool.shutdown();
+            }
+        }
+
+        // Replaced recipes are moved to the end of the list, in the order they were found
+        List<Object> recipesToKeep = new ArrayList<Object>(recipeArray.length);
+        List<IRecipe> recipesToAdd = new ArrayList<IRecipe>();
+        for (int x = 0; x < recipeArray.length; x++)
+        {
+            if (!search.replace[x])
+            {
+                recipesToKeep.add(recipeArray[x]);
+            }
+            else if (recipeArray[x] instanceof ShapedRecipes)
+            {
+                recipesToAdd.add(new ShapedOreRecipe((ShapedRecipes)recipeArray[x], replacements));
+            }
+            else
+            {
+                recipesToAdd.add(new ShapelessOreRecipe((ShapelessRecipes)recipeArray[x], replacements));
             }
-            else if(obj instanceof ShapelessRecipes)
+        }
+
+        if (recipesToAdd.size() > 0)
+        {
+            recipes.clear();
+            recipes.addAll(recipesToKeep);
+            recipes.addAll(recipesToAdd);
+            System.out.println("Replaced " + recipesToAdd.size() + " ore recipies");
+        }
+    }
+
+    /**
+     * Finds the shaped and shapeless recipes that use any of the stacks to replace. It only reads the recipes
+     * and the stacks, so parts of the recipe list can be searched on several threads.
+     * The search runs while OreDictionary is still initializing, so it must not call any of its static methods.
+     */
+    private static class ReplacementSearch
+    {
+        private final Object[] recipes;
+        private final Map<Integer, List<ItemStack>> replaceStacks;
+        private final ItemStack[] exclusions;
+        private final boolean[] replace;
+
+        private ReplacementSearch(Object[] recipes, Map<Integer, List<ItemStack>> replaceStacks, ItemStack[] exclusions)
+        {
+            this.recipes = recipes;
+            this.replaceStacks = replaceStacks;
+            this.exclusions = exclusions;
+            this.replace = new boolean[recipes.length];
+        }
+
+        private void search(int from, int to)
+        {
+            for (int x = from; x < to; x++)
             {
-                ShapelessRecipes recipe = (ShapelessRecipes)obj;
-                ItemStack output = recipe.getRecipeOutput();
-                if (output != null && containsMatch(false, exclusions, output))
+                Object obj = recipes[x];
+                ItemStack[] items;
+                if (obj instanceof ShapedRecipes)
+                {
+                    items = ((ShapedRecipes)obj).recipeItems;
+                }
+                else if (obj instanceof ShapelessRecipes)
+                {
+                    List list = ((ShapelessRecipes)obj).recipeItems;
+                    items = (ItemStack[])list.toArray(new ItemStack[list.size()]);
+                }
+                else
                 {
                     continue;
                 }
 
-                if(containsMatch(true, (ItemStack[])recipe.recipeItems.toArray(new ItemStack[recipe.recipeItems.size()]), replaceStacks))
+                ItemStack output = ((IRecipe)obj).getRecipeOutput();
+                if (output != null && isExcluded(output))
                 {
-                    recipesToRemove.add((IRecipe)obj);
-                    IRecipe newRecipe = new ShapelessOreRecipe(recipe, replacements);
-                    recipesToAdd.add(newRecipe);
+                    continue;
                 }
+
+                replace[x] = usesReplaced(items);
             }
         }
 
-        recipes.removeAll(recipesToRemove);
-        recipes.addAll(recipesToAdd);
-        if (recipesToRemove.size() > 0)
+        private boolean isExcluded(ItemStack output)
         {
-            System.out.println("Replaced " + recipesToRemove.size() + " ore recipies");
+            for (ItemStack exclusion : exclusions)
+            {
+                // Same as itemMatches(output, exclusion, false), a wildcard output matches every exclusion of its item
+                if (output.itemID == exclusion.itemID && (output.getItemDamage() == -1 || output.getItemDamage() == exclusion.getItemDamage()))
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean usesReplaced(ItemStack[] items)
+        {
+            for (ItemStack item : items)
+            {
+                List<ItemStack> targets = (item == null ? null : replaceStacks.get(item.itemID));
+                if (targets == null)
+                {
+                    continue;
+                }
+                for (ItemStack target : targets)
+                {
+                    if (target.getItemDamage() == item.getItemDamage())
+                    {
+                        return true;
+                    }
+                }
+            }
+            return false;
         }
     }
 
@@ -152,7 +314,8 @@ public class OreDictionary
         {
             val = maxID++;
             oreIDs.put(name, val);
-            oreStacks.put(val, new ArrayList<ItemStack>());
+            oreNames.add(name);
+            oreStacks.put(val, new OreList());
         }
         return val;
     }
@@ -165,12 +328,9 @@ public class OreDictionary
      */
     public static String getOreName(int id)
     {
-        for (Map.Entry<String, Integer> entry : oreIDs.entrySet())
+        if (id >= 0 && id < oreNames.size())
         {
-            if (id == entry.getValue())
-            {
-                return entry.getKey();
-            }
+            return oreNames.get(id);
         }
         return "Unknown";
     }
@@ -178,6 +338,7 @@ public class OreDictionary
     /**
      * Gets the integer ID for the specified item stack.
      * If the item stack is not linked to any ore, this will return -1 and no new entry will be created.
+     * If it is linked to several ores, the lowest ID is returned. Only stacks added through registerOre are found.
      *
      * @param itemStack The item stack of the ore.
      * @return A number representing the ID for this ore type, or -1 if couldn't find it.
@@ -189,17 +350,91 @@ public class OreDictionary
             return -1;
         }
 
-        for(Entry<Integer, ArrayList<ItemStack>> ore : oreStacks.entrySet())
+        int[] ids = getCachedOreIDs(itemStack);
+        return (ids.length > 0 ? ids[0] : -1); // -1 if didn't find it.
+    }
+
+    /**
+     * Gets the integer IDs of every ore the specified item stack is linked to.
+     * Only stacks added through registerOre are found.
+     *
+     * @param itemStack The item stack of the ore.
+     * @return The IDs, in ascending order, empty if the stack is not linked to any ore.
+     */
+    public static int[] getOreIDs(ItemStack itemStack)
+    {
+        if (itemStack == null)
         {
-            for(ItemStack target : ore.getValue())
+            return NO_IDS;
+        }
+        return getCachedOreIDs(itemStack).clone();
+    }
+
+    /**
+     * Determines if the specified item stack is linked to the ore.
+     *
+     * @param itemStack The item stack
+     * @param id The ore ID, see getOreID
+     * @return True if the stack is registered to the ore, or a wildcard stack of its item is
+     */
+    public static boolean isOre(ItemStack itemStack, int id)
+    {
+        return itemStack != null && Arrays.binarySearch(getCachedOreIDs(itemStack), id) >= 0;
+    }
+
+    /**
+     * Same as getOreIDs, without the copy. The array must not be modified.
+     */
+    static int[] getCachedOreIDs(ItemStack itemStack)
+    {
+        Long key = getStackKey(itemStack.itemID, itemStack.getItemDamage());
+        int[] exact = stackOreIDs.get(key);
+        int[] wildcard = stackOreIDs.get(getStackKey(itemStack.itemID, -1));
+        if (exact == null)
+        {
+            return (wildcard == null ? NO_IDS : wildcard);
+        }
+        if (wildcard == null || wildcard == exact)
+        {
+            return exact;
+        }
+
+        int[] ids = stackOreIDCache.get(key);
+        if (ids == null)
+        {
+            ids = exact;
+            for (int id : wildcard)
             {
-                if(itemStack.itemID == target.itemID && (target.getItemDamage() == -1 || itemStack.getItemDamage() == target.getItemDamage()))
-                {
-                    return ore.getKey();
-                }
+                ids = insertID(ids, id);
             }
+            stackOreIDCache.put(key, ids);
+        }
+        return ids;
+    }
+
+    /**
+     * Adds the ID to the sorted array, if it is not there already.
+     *
+     * @return The array, or a new array with the ID added
+     */
+    private static int[] insertID(int[] ids, int id)
+    {
+        int index = Arrays.binarySearch(ids, id);
+        if (index >= 0)
+        {
+            return ids;
         }
-        return -1; // didn't find it.
+        index = -index - 1;
+        int[] ret = new int[ids.length + 1];
+        System.arraycopy(ids, 0, ret, 0, index);
+        ret[index] = id;
+        System.arraycopy(ids, index, ret, index + 1, ids.length - index);
+        return ret;
+    }
+
+    private static long getStackKey(int itemID, int damage)
+    {
+        return ((long)itemID << 32) | (damage & 0xFFFFFFFFL);
     }
     
     /**
@@ -236,12 +471,50 @@ public class OreDictionary
         ArrayList<ItemStack> val = oreStacks.get(id);
         if (val == null)
         {
-            val = new ArrayList<ItemStack>();
+            val = new OreList();
             oreStacks.put(id, val);
         }
         return val;
     }
 
+    /**
+     * The list of stacks of an ore, it counts every change so compiled copies of it know when to compile again.
+     */
+    static class OreList extends ArrayList<ItemStack>
+    {
+        private static final long serialVersionUID = 1L;
+        private int sets;
+
+        @Override
+        public ItemStack set(int index, ItemStack stack)
+        {
+            // Not counted in modCount, so iterators that set are not broken
+            sets++;
+            return super.set(index, stack);
+        }
+
+        int getModCount()
+        {
+            return modCount + sets;
+        }
+    }
+
+    /**
+     * @return The number of stacks registered so far, used to tell when ore lists have changed
+     */
+    static int getRegistrationCount()
+    {
+        return registrationCount;
+    }
+
+    /**
+     * @return Every ore ID and its list of registered stacks
+     */
+    static Map<Integer, ArrayList<ItemStack>> getOreLists()
+    {
+        return oreStacks;
+    }
+
     private static boolean containsMatch(boolean strict, ItemStack[] inputs, ItemStack... targets)
     {
         for (ItemStack input : inputs)
@@ -287,6 +560,12 @@ public class OreDictionary
         ArrayList<ItemStack> ores = getOres(id);
         ore = ore.copy();
         ores.add(ore);
+
+        Long key = getStackKey(ore.itemID, ore.getItemDamage());
+        int[] ids = stackOreIDs.get(key);
+        stackOreIDs.put(key, insertID(ids == null ? NO_IDS : ids, id));
+        stackOreIDCache.clear();
+        registrationCount++;
         MinecraftForge.EVENT_BUS.post(new OreRegisterEvent(name, ore));
     }
     
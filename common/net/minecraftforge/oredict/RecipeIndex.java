@@ -0,0 +1,479 @@
+package net.minecraftforge.oredict;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.google.common.collect.MapMaker;
+
+import net.minecraft.inventory.InventoryCrafting;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.crafting.IRecipe;
+import net.minecraft.item.crafting.ShapedRecipes;
+import net.minecraft.item.crafting.ShapelessRecipes;
+import net.minecraft.world.World;
+
+/**
+ * Finds the first recipe in CraftingManager's recipe list that matches a crafting grid, without
+ * calling matches on every recipe.
+ *
+ * Every ShapedRecipes, ShapelessRecipes, ShapedOreRecipe and ShapelessOreRecipe needs each of its
+ * ingredients in the grid, so each of them is indexed under one ingredient: the item ID of an ItemStack
+ * ingredient, or else the ore ID of an ore ingredient. Only the recipes indexed under the items in the
+ * grid, and under the ores those items belong to, are tested. Any other recipe, including subclasses
+ * of those four, is always tested. Candidates are tested in list order, so the same recipe is found as
+ * with a plain scan.
+ *
+ * The last match of each crafting inventory is remembered with the item IDs and damage values of its
+ * slots. While the grid is unchanged, only that recipe, and the unindexed recipes before it, are tested.
+ *
+ * The index is rebuilt when the recipe list is changed, an ore is registered, or an ore list a recipe is
+ * indexed under changes, as stacks added to the list directly are not found by their ore IDs. The inputs
+ * of the recipes are live arrays and lists, so the index also remembers the input each recipe is indexed
+ * under, where it was found and, for a stack, its item ID. It is rebuilt when that input was replaced in
+ * place, or the item ID of the stack was changed.
+ */
+public class RecipeIndex
+{
+    /**
+     * The recipe list of CraftingManager, it counts every change so the index knows when to rebuild.
+     */
+    public static class RecipeList extends ArrayList<IRecipe>
+    {
+        private static final long serialVersionUID = 1L;
+        private int sets;
+
+        @Override
+        public IRecipe set(int index, IRecipe recipe)
+        {
+            // Not counted in modCount, Collections.sort sets through an iterator that would then fail
+            sets++;
+            return super.set(index, recipe);
+        }
+
+        public int getModCount()
+        {
+            return modCount + sets;
+        }
+    }
+
+    private static final int[] EMPTY = new int[0];
+
+    private static class Index
+    {
+        private final List<IRecipe> list;
+        private final int modCount;
+        private final int oreRegistrations;
+        private final IRecipe[] recipes;
+        private List<ItemStack>[] oreLists;
+        private int[] oreStamps = EMPTY;
+        private int[] keyed = EMPTY;
+        private Object[] keyInputs;
+        private int[] keyPositions;
+        private Object[] keys;
+        private int[] keyItemIDs;
+        private final HashMap<Integer, int[]> byItem = new HashMap<Integer, int[]>();
+        private final HashMap<Integer, int[]> byOre = new HashMap<Integer, int[]>();
+        private int[] unindexed = EMPTY;
+
+        private Index(RecipeList list)
+        {
+            this.list = list;
+            this.modCount = list.getModCount();
+            this.oreRegistrations = OreDictionary.getRegistrationCount();
+            this.recipes = list.toArray(new IRecipe[list.size()]);
+        }
+    }
+
+    private static class LastMatch
+    {
+        private final Index index;
+        private final int[] grid;
+        private final int recipe;
+
+        private LastMatch(Index index, int[] grid, int recipe)
+        {
+            this.index = index;
+            this.grid = grid;
+            this.recipe = recipe;
+        }
+    }
+
+    private static volatile Index index;
+    private static Map<InventoryCrafting, LastMatch> lastMatches = new MapMaker().weakKeys().makeMap();
+
+    /**
+     * Finds the first recipe in the list that matches the crafting grid.
+     *
+     * @param recipes The recipe list, if it is not a RecipeList every recipe is tested
+     * @param inv The crafting grid
+     * @param world The world
+     * @return The recipe, or null if none match
+     */
+    @SuppressWarnings("rawtypes")
+    public static IRecipe findMatchingRecipe(List recipes, InventoryCrafting inv, World world)
+    {
+        if (!(recipes instanceof RecipeList))
+        {
+            for (Object obj : recipes)
+            {
+                IRecipe recipe = (IRecipe)obj;
+                if (recipe.matches(inv, world))
+                {
+                    return recipe;
+                }
+            }
+            return null;
+        }
+
+        Index idx = getIndex((RecipeList)recipes);
+        int[] grid = getGrid(inv);
+
+        LastMatch last = lastMatches.get(inv);
+        if (last != null && last.index == idx && Arrays.equals(last.grid, grid))
+        {
+            for (int x : idx.unindexed)
+            {
+                if (x >= last.recipe)
+                {
+                    break;
+                }
+                if (idx.recipes[x].matches(inv, world))
+                {
+                    return remember(inv, idx, grid, x);
+                }
+            }
+            if (idx.recipes[last.recipe].matches(inv, world))
+            {
+                return idx.recipes[last.recipe];
+            }
+        }
+
+        for (int x : getCandidates(idx, inv))
+        {
+            if (idx.recipes[x].matches(inv, world))
+            {
+                return remember(inv, idx, grid, x);
+            }
+        }
+        lastMatches.remove(inv);
+        return null;
+    }
+
+    private static IRecipe remember(InventoryCrafting inv, Index idx, int[] grid, int recipe)
+    {
+        lastMatches.put(inv, new LastMatch(idx, grid, recipe));
+        return idx.recipes[recipe];
+    }
+
+    private static int[] getGrid(InventoryCrafting inv)
+    {
+        int[] grid = new int[inv.getSizeInventory() * 2];
+        for (int x = 0; x < inv.getSizeInventory(); x++)
+        {
+            ItemStack stack = inv.getStackInSlot(x);
+            if (stack != null)
+            {
+                grid[x * 2] = stack.itemID;
+                grid[x * 2 + 1] = stack.getItemDamage();
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * @return The positions of the recipes that may match the grid, in ascending order
+     */
+    private static int[] getCandidates(Index idx, InventoryCrafting inv)
+    {
+        List<int[]> buckets = new ArrayList<int[]>();
+        int count = idx.unindexed.length;
+        buckets.add(idx.unindexed);
+
+        for (int x = 0; x < inv.getSizeInventory(); x++)
+        {
+            ItemStack stack = inv.getStackInSlot(x);
+            if (stack == null)
+            {
+                continue;
+            }
+            int[] bucket = idx.byItem.get(stack.itemID);
+            if (bucket != null && !containsBucket(buckets, bucket))
+            {
+                buckets.add(bucket);
+                count += bucket.length;
+            }
+            for (int ore : OreDictionary.getCachedOreIDs(stack))
+            {
+                bucket = idx.byOre.get(ore);
+                if (bucket != null && !containsBucket(buckets, bucket))
+                {
+                    buckets.add(bucket);
+                    count += bucket.length;
+                }
+            }
+        }
+
+        if (buckets.size() == 1)
+        {
+            return idx.unindexed;
+        }
+
+        // Every recipe is in only one bucket, so there are no duplicates to remove
+        int[] ret = new int[count];
+        int pos = 0;
+        for (int[] bucket : buckets)
+        {
+            System.arraycopy(bucket, 0, ret, pos, bucket.length);
+            pos += bucket.length;
+        }
+        Arrays.sort(ret);
+        return ret;
+    }
+
+    private static boolean containsBucket(List<int[]> buckets, int[] bucket)
+    {
+        for (int[] existing : buckets)
+        {
+            if (existing == bucket)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Index getIndex(RecipeList list)
+    {
+        Index idx = index;
+        if (isStale(idx, list))
+        {
+            synchronized (RecipeIndex.class)
+            {
+                idx = index;
+                if (isStale(idx, list))
+                {
+                    idx = buildIndex(list);
+                    index = idx;
+                }
+            }
+        }
+        return idx;
+    }
+
+    private static boolean isStale(Index idx, RecipeList list)
+    {
+        if (idx == null || idx.list != list || idx.modCount != list.getModCount() || idx.oreRegistrations != OreDictionary.getRegistrationCount())
+        {
+            return true;
+        }
+        for (int x = 0; x < idx.oreStamps.length; x++)
+        {
+            if (IngredientMatcher.getStamp(idx.oreLists[x]) != idx.oreStamps[x])
+            {
+                return true;
+            }
+        }
+        for (int x = 0; x < idx.keyed.length; x++)
+        {
+            Object inputs = getInputs(idx.recipes[idx.keyed[x]]);
+            Object key = idx.keys[x];
+            if (inputs != idx.keyInputs[x] || getInput(inputs, idx.keyPositions[x]) != key)
+            {
+                return true;
+            }
+            if (key instanceof ItemStack && ((ItemStack)key).itemID != idx.keyItemIDs[x])
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Index buildIndex(RecipeList list)
+    {
+        Index idx = new Index(list);
+
+        IdentityHashMap<List<ItemStack>, Integer> oreLists = new IdentityHashMap<List<ItemStack>, Integer>();
+        HashMap<Integer, List<ItemStack>> oreIDs = new HashMap<Integer, List<ItemStack>>();
+        for (Entry<Integer, ArrayList<ItemStack>> entry : OreDictionary.getOreLists().entrySet())
+        {
+            if (isReverseIndexed(entry.getKey(), entry.getValue()))
+            {
+                oreLists.put(entry.getValue(), entry.getKey());
+                oreIDs.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        HashMap<Integer, List<Integer>> byItem = new HashMap<Integer, List<Integer>>();
+        HashMap<Integer, List<Integer>> byOre = new HashMap<Integer, List<Integer>>();
+        List<Integer> unindexed = new ArrayList<Integer>();
+        List<Integer> keyed = new ArrayList<Integer>();
+        List<Object> keyInputs = new ArrayList<Object>();
+        List<Integer> keyPositions = new ArrayList<Integer>();
+        List<Object> keys = new ArrayList<Object>();
+        for (int x = 0; x < idx.recipes.length; x++)
+        {
+            Object inputs = getInputs(idx.recipes[x]);
+            int count = (inputs == null ? 0 : getInputCount(inputs));
+            ItemStack item = null;
+            Integer ore = null;
+            int itemPos = -1;
+            int orePos = -1;
+            for (int y = 0; y < count; y++)
+            {
+                Object input = getInput(inputs, y);
+                if (input instanceof ItemStack)
+                {
+                    item = (ItemStack)input;
+                    itemPos = y;
+                    break;
+                }
+                else if (input != null && ore == null)
+                {
+                    ore = oreLists.get(input);
+                    orePos = (ore == null ? -1 : y);
+                }
+            }
+
+            if (item != null)
+            {
+                add(byItem, item.itemID, x);
+            }
+            else if (ore != null)
+            {
+                add(byOre, ore, x);
+            }
+            else
+            {
+                unindexed.add(x);
+                continue;
+            }
+            int pos = (item != null ? itemPos : orePos);
+            keyed.add(x);
+            keyInputs.add(inputs);
+            keyPositions.add(pos);
+            keys.add(getInput(inputs, pos));
+        }
+
+        toArrays(byItem, idx.byItem);
+        toArrays(byOre, idx.byOre);
+        idx.unindexed = toArray(unindexed);
+
+        idx.keyed = toArray(keyed);
+        idx.keyInputs = keyInputs.toArray();
+        idx.keyPositions = toArray(keyPositions);
+        idx.keys = keys.toArray();
+        idx.keyItemIDs = new int[idx.keys.length];
+        for (int x = 0; x < idx.keys.length; x++)
+        {
+            if (idx.keys[x] instanceof ItemStack)
+            {
+                idx.keyItemIDs[x] = ((ItemStack)idx.keys[x]).itemID;
+            }
+        }
+
+        idx.oreLists = new List[byOre.size()];
+        idx.oreStamps = new int[byOre.size()];
+        int pos = 0;
+        for (Integer ore : byOre.keySet())
+        {
+            idx.oreLists[pos] = oreIDs.get(ore);
+            idx.oreStamps[pos] = IngredientMatcher.getStamp(idx.oreLists[pos]);
+            pos++;
+        }
+        return idx;
+    }
+
+    /**
+     * Stacks added to an ore list directly, instead of through registerOre, are not found by the
+     * ore IDs of a stack. Recipes that use such a list are not indexed under the ore.
+     */
+    private static boolean isReverseIndexed(int ore, List<ItemStack> stacks)
+    {
+        for (ItemStack stack : stacks)
+        {
+            if (stack == null || Arrays.binarySearch(OreDictionary.getCachedOreIDs(stack), ore) < 0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The live array or list of the ingredients of the recipe, or null if the recipe can not be indexed
+     */
+    private static Object getInputs(IRecipe recipe)
+    {
+        Class<?> cls = recipe.getClass();
+        if (cls == ShapedRecipes.class)
+        {
+            return ((ShapedRecipes)recipe).recipeItems;
+        }
+        else if (cls == ShapelessRecipes.class)
+        {
+            return ((ShapelessRecipes)recipe).recipeItems;
+        }
+        else if (cls == ShapedOreRecipe.class)
+        {
+            return ((ShapedOreRecipe)recipe).getInput();
+        }
+        else if (cls == ShapelessOreRecipe.class)
+        {
+            return ((ShapelessOreRecipe)recipe).getInput();
+        }
+        return null;
+    }
+
+    private static int getInputCount(Object inputs)
+    {
+        return (inputs instanceof Object[] ? ((Object[])inputs).length : ((List<?>)inputs).size());
+    }
+
+    /**
+     * @return The ingredient at the position, or null if the position is past the end of the ingredients
+     */
+    private static Object getInput(Object inputs, int pos)
+    {
+        if (pos >= getInputCount(inputs))
+        {
+            return null;
+        }
+        return (inputs instanceof Object[] ? ((Object[])inputs)[pos] : ((List<?>)inputs).get(pos));
+    }
+
+    private static void add(HashMap<Integer, List<Integer>> map, int key, int recipe)
+    {
+        List<Integer> list = map.get(key);
+        if (list == null)
+        {
+            list = new ArrayList<Integer>();
+            map.put(key, list);
+        }
+        list.add(recipe);
+    }
+
+    private static void toArrays(HashMap<Integer, List<Integer>> from, HashMap<Integer, int[]> to)
+    {
+        for (Entry<Integer, List<Integer>> entry : from.entrySet())
+        {
+            to.put(entry.getKey(), toArray(entry.getValue()));
+        }
+    }
+
+    private static int[] toArray(List<Integer> list)
+    {
+        int[] ret = new int[list.size()];
+        for (int x = 0; x < ret.length; x++)
+        {
+            ret[x] = list.get(x);
+        }
+        return ret;
+    }
+}
@@ -1,6 +1,5 @@
 package net.minecraftforge.oredict;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -24,6 +23,7 @@ public class ShapedOreRecipe implements IRecipe
     private int width = 0;
     private int height = 0;
     private boolean mirrored = true;
+    private volatile IngredientMatcher[] matchers = null;
 
     public ShapedOreRecipe(Block     result, Object... recipe){ this(new ItemStack(result), recipe); }
     public ShapedOreRecipe(Item      result, Object... recipe){ this(new ItemStack(result), recipe); }
@@ -163,16 +163,17 @@ public class ShapedOreRecipe implements IRecipe
     @Override
     public boolean matches(InventoryCrafting inv, World world)
     {        
+        IngredientMatcher[] required = getMatchers();
         for (int x = 0; x <= MAX_CRAFT_GRID_WIDTH - width; x++)
         {
             for (int y = 0; y <= MAX_CRAFT_GRID_HEIGHT - height; ++y)
             {
-                if (checkMatch(inv, x, y, true))
+                if (checkMatch(inv, required, x, y, true))
                 {
                     return true;
                 }
     
-                if (mirrored && checkMatch(inv, x, y, false))
+                if (mirrored && checkMatch(inv, required, x, y, false))
                 {
                     return true;
                 }
@@ -182,7 +183,19 @@ public class ShapedOreRecipe implements IRecipe
         return false;
     }
     
-    private boolean checkMatch(InventoryCrafting inv, int startX, int startY, boolean mirror)
+    private IngredientMatcher[] getMatchers()
+    {
+        IngredientMatcher[] ret = matchers;
+        Object[] current = input;
+        if (ret == null || !IngredientMatcher.isCompiledFrom(ret, current))
+        {
+            ret = IngredientMatcher.compile(current);
+            matchers = ret;
+        }
+        return ret;
+    }
+
+    private boolean checkMatch(InventoryCrafting inv, IngredientMatcher[] required, int startX, int startY, boolean mirror)
     {
         for (int x = 0; x < MAX_CRAFT_GRID_WIDTH; x++)
         {
@@ -190,44 +203,30 @@ public class ShapedOreRecipe implements IRecipe
             {
                 int subX = x - startX;
                 int subY = y - startY;
-                Object target = null;
+                IngredientMatcher target = null;
 
                 if (subX >= 0 && subY >= 0 && subX < width && subY < height)
                 {
                     if (mirror)
                     {
-                        target = input[width - subX - 1 + subY * width];
+                        target = required[width - subX - 1 + subY * width];
                     }
                     else
                     {
-                        target = input[subX + subY * width];
+                        target = required[subX + subY * width];
                     }
                 }
 
                 ItemStack slot = inv.getStackInRowAndColumn(x, y);
-                
-                if (target instanceof ItemStack)
-                {
-                    if (!checkItemEquals((ItemStack)target, slot))
-                    {
-                        return false;
-                    }
-                }
-                else if (target instanceof ArrayList)
+
+                if (target != null)
                 {
-                    boolean matched = false;
-                    
-                    for (ItemStack item : (ArrayList<ItemStack>)target)
-                    {
-                        matched = matched || checkItemEquals(item, slot);
-                    }
-                    
-                    if (!matched)
+                    if (!target.matches(slot))
                     {
                         return false;
                     }
                 }
-                else if (target == null && slot != null)
+                else if (slot != null)
                 {
                     return false;
                 }
@@ -237,15 +236,6 @@ public class ShapedOreRecipe implements IRecipe
         return true;
     }
 
-    private boolean checkItemEquals(ItemStack target, ItemStack input)
-    {
-        if (input == null && target != null || input != null && target == null)
-        {
-            return false;
-        }
-        return (target.itemID == input.itemID && (target.getItemDamage() == -1 || target.getItemDamage() == input.getItemDamage()));
-    }
-
     public ShapedOreRecipe setMirrored(boolean mirror)
     {
         mirrored = mirror;
@@ -1,7 +1,6 @@
 package net.minecraftforge.oredict;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.List;
@@ -19,6 +18,7 @@ public class ShapelessOreRecipe implements IRecipe
 {
     private ItemStack output = null;
     private ArrayList input = new ArrayList();    
+    private volatile IngredientMatcher[] matchers = null;
 
     public ShapelessOreRecipe(Block result, Object... recipe){ this(new ItemStack(result), recipe); }
     public ShapelessOreRecipe(Item  result, Object... recipe){ this(new ItemStack(result), recipe); }
@@ -88,7 +88,16 @@ public class ShapelessOreRecipe implements IRecipe
     @Override
     public boolean matches(InventoryCrafting var1, World world) 
     {
-        ArrayList required = new ArrayList(input);
+        IngredientMatcher[] required = getMatchers();
+        if (required.length > 64)
+        {
+            // More ingredients than any crafting grid has slots
+            return false;
+        }
+
+        // Each slot takes the first ingredient it matches that no earlier slot took
+        long used = 0;
+        long all = (required.length == 64 ? -1L : (1L << required.length) - 1);
 
         for (int x = 0; x < var1.getSizeInventory(); x++)
         {
@@ -97,30 +106,13 @@ public class ShapelessOreRecipe implements IRecipe
             if (slot != null)
             {
                 boolean inRecipe = false;
-                Iterator req = required.iterator();
 
-                while (req.hasNext())
+                for (int y = 0; y < required.length; y++)
                 {
-                    boolean match = false;
-                    
-                    Object next = req.next();
-                    
-                    if (next instanceof ItemStack)
-                    {
-                        match = checkItemEquals((ItemStack)next, slot);
-                    }
-                    else if (next instanceof ArrayList)
-                    {
-                        for (ItemStack item : (ArrayList<ItemStack>)next)
-                        {
-                            match = match || checkItemEquals(item, slot);
-                        }
-                    }
-
-                    if (match)
+                    if ((used & (1L << y)) == 0 && required[y] != null && required[y].matches(slot))
                     {
+                        used |= (1L << y);
                         inRecipe = true;
-                        required.remove(next);
                         break;
                     }
                 }
@@ -132,12 +124,18 @@ public class ShapelessOreRecipe implements IRecipe
             }
         }
 
-        return required.isEmpty();
+        return used == all;
     }
-    
-    private boolean checkItemEquals(ItemStack target, ItemStack input)
+
+    private IngredientMatcher[] getMatchers()
     {
-        return (target.itemID == input.itemID && (target.getItemDamage() == -1 || target.getItemDamage() == input.getItemDamage()));
+        IngredientMatcher[] ret = matchers;
+        if (ret == null || !IngredientMatcher.isCompiledFrom(ret, input))
+        {
+            ret = IngredientMatcher.compile(input.toArray());
+            matchers = ret;
+        }
+        return ret;
     }
 
     /**
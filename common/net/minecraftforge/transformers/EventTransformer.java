@@ -1,7 +1,9 @@
 package net.minecraftforge.transformers;
 
+import java.lang.annotation.Annotation;
 import java.util.List;
 
+import net.minecraftforge.event.Cancelable;
 import net.minecraftforge.event.Event;
 import net.minecraftforge.event.ListenerList;
 
@@ -64,6 +66,8 @@ public class EventTransformer implements IClassTransformer
         boolean hasSetup = false;
         boolean hasGetListenerList = false;
         boolean hasDefaultCtr = false;
+        boolean hasIsCancelable = false;
+        boolean hasHasResult = false;
 
         Class<?> listenerListClazz = Class.forName("net.minecraftforge.event.ListenerList", false, getClass().getClassLoader());
         Type tList = Type.getType(listenerListClazz);
@@ -87,24 +91,41 @@ public class EventTransformer implements IClassTransformer
                 {
                     hasDefaultCtr = true;
                 }
-        }
-
-        if (hasSetup)
-        {
-                if (!hasGetListenerList)
+                if (method.name.equals("isCancelable") &&
+                    method.desc.equals(Type.getMethodDescriptor(BOOLEAN_TYPE)))
                 {
-                        throw new RuntimeException("Event class defines setup() but does not define getListenerList! " + classNode.name);
+                    hasIsCancelable = true;
                 }
-                else
+                if (method.name.equals("hasResult") &&
+                    method.desc.equals(Type.getMethodDescriptor(BOOLEAN_TYPE)))
                 {
-                        return false;
+                    hasHasResult = true;
                 }
         }
 
+        if (hasSetup && !hasGetListenerList)
+        {
+                throw new RuntimeException("Event class defines setup() but does not define getListenerList! " + classNode.name);
+        }
+
         Type tSuper = Type.getType(classNode.superName);
 
-        //Add private static ListenerList LISTENER_LIST
-        classNode.fields.add(new FieldNode(ACC_PRIVATE | ACC_STATIC, "LISTENER_LIST", tList.getDescriptor(), null, null));
+        if (!hasIsCancelable)
+        {
+            addAnnotationCheck(classNode, tSuper, "isCancelable", hasAnnotation(classNode, parent, Cancelable.class));
+        }
+        if (!hasHasResult)
+        {
+            addAnnotationCheck(classNode, tSuper, "hasResult", hasAnnotation(classNode, parent, Event.HasResult.class));
+        }
+
+        if (hasSetup)
+        {
+            return !hasIsCancelable || !hasHasResult;
+        }
+
+        //Add private static volatile ListenerList LISTENER_LIST
+        classNode.fields.add(new FieldNode(ACC_PRIVATE | ACC_STATIC | ACC_VOLATILE, "LISTENER_LIST", tList.getDescriptor(), null, null));
 
         /*Add:
          *      public <init>()
@@ -129,7 +150,7 @@ public class EventTransformer implements IClassTransformer
          *              {
          *                      return;
          *              }
-         *              LISTENER_LIST = new ListenerList(super.getListenerList());
+         *              setupListenerList(super.getListenerList());
          *      }
          */
         method = new MethodNode(ASM4, ACC_PROTECTED, "setup", getMethodDescriptor(VOID_TYPE), null, null);
@@ -141,12 +162,35 @@ public class EventTransformer implements IClassTransformer
         method.instructions.add(new InsnNode(RETURN));
         method.instructions.add(initLisitener);
         method.instructions.add(new FrameNode(F_SAME, 0, null, 0, null));
+        method.instructions.add(new VarInsnNode(ALOAD, 0));
+        method.instructions.add(new MethodInsnNode(INVOKESPECIAL, tSuper.getInternalName(), "getListenerList", getMethodDescriptor(tList)));
+        method.instructions.add(new MethodInsnNode(INVOKESTATIC, classNode.name, "setupListenerList", getMethodDescriptor(VOID_TYPE, tList)));
+        method.instructions.add(new InsnNode(RETURN));
+        classNode.methods.add(method);
+
+        /*Add:
+         *      private static synchronized void setupListenerList(ListenerList parent)
+         *      {
+         *              if (LISTENER_LIST == NULL)
+         *              {
+         *                      LISTENER_LIST = new ListenerList(parent);
+         *              }
+         *      }
+         *
+         * Synchronized on the event class, EventBus takes the same lock when it sets up the list 
+         * without a instance, so only one list is ever created.
+         */
+        method = new MethodNode(ASM4, ACC_PRIVATE | ACC_STATIC | ACC_SYNCHRONIZED, "setupListenerList", getMethodDescriptor(VOID_TYPE, tList), null, null);
+        method.instructions.add(new FieldInsnNode(GETSTATIC, classNode.name, "LISTENER_LIST", tList.getDescriptor()));
+        LabelNode alreadySet = new LabelNode();
+        method.instructions.add(new JumpInsnNode(IFNONNULL, alreadySet));
         method.instructions.add(new TypeInsnNode(NEW, tList.getInternalName()));
         method.instructions.add(new InsnNode(DUP));
         method.instructions.add(new VarInsnNode(ALOAD, 0));
-        method.instructions.add(new MethodInsnNode(INVOKESPECIAL, tSuper.getInternalName(), "getListenerList", getMethodDescriptor(tList)));
         method.instructions.add(new MethodInsnNode(INVOKESPECIAL, tList.getInternalName(), "<init>", getMethodDescriptor(VOID_TYPE, tList)));
         method.instructions.add(new FieldInsnNode(PUTSTATIC, classNode.name, "LISTENER_LIST", tList.getDescriptor()));
+        method.instructions.add(alreadySet);
+        method.instructions.add(new FrameNode(F_SAME, 0, null, 0, null));
         method.instructions.add(new InsnNode(RETURN));
         classNode.methods.add(method);
 
@@ -160,7 +204,69 @@ public class EventTransformer implements IClassTransformer
         method.instructions.add(new FieldInsnNode(GETSTATIC, classNode.name, "LISTENER_LIST", tList.getDescriptor()));
         method.instructions.add(new InsnNode(ARETURN));
         classNode.methods.add(method);
+
         return true;
     }
 
+    /*Add:
+     *      public boolean <name>()
+     *      {
+     *              if (getClass() == <this class>)
+     *              {
+     *                      return <value>;
+     *              }
+     *              return super.<name>();
+     *      }
+     *
+     * Subclasses the transformer did not process fall through to the per-class check in Event,
+     * instead of inheriting this class's constant.
+     */
+    private void addAnnotationCheck(ClassNode classNode, Type tSuper, String name, boolean value)
+    {
+        MethodNode method = new MethodNode(ASM4, ACC_PUBLIC, name, getMethodDescriptor(BOOLEAN_TYPE), null, null);
+        method.instructions.add(new VarInsnNode(ALOAD, 0));
+        method.instructions.add(new MethodInsnNode(INVOKEVIRTUAL, "java/lang/Object", "getClass", getMethodDescriptor(getType(Class.class))));
+        method.instructions.add(new LdcInsnNode(Type.getObjectType(classNode.name)));
+        LabelNode subclass = new LabelNode();
+        method.instructions.add(new JumpInsnNode(IF_ACMPNE, subclass));
+        method.instructions.add(new InsnNode(value ? ICONST_1 : ICONST_0));
+        method.instructions.add(new InsnNode(IRETURN));
+        method.instructions.add(subclass);
+        method.instructions.add(new FrameNode(F_SAME, 0, null, 0, null));
+        method.instructions.add(new VarInsnNode(ALOAD, 0));
+        method.instructions.add(new MethodInsnNode(INVOKESPECIAL, tSuper.getInternalName(), name, getMethodDescriptor(BOOLEAN_TYPE)));
+        method.instructions.add(new InsnNode(IRETURN));
+        classNode.methods.add(method);
+    }
+
+    /**
+     * Determines if the event being transformed, or any of its already loaded parents, has the annotation.
+     */
+    @SuppressWarnings("unchecked")
+    private boolean hasAnnotation(ClassNode classNode, Class<?> parent, Class<? extends Annotation> annotation)
+    {
+        if (classNode.visibleAnnotations != null)
+        {
+            String desc = Type.getDescriptor(annotation);
+            for (AnnotationNode node : (List<AnnotationNode>)classNode.visibleAnnotations)
+            {
+                if (node.desc.equals(desc))
+                {
+                    return true;
+                }
+            }
+        }
+
+        Class<?> cls = parent;
+        while (cls != Event.class)
+        {
+            if (cls.isAnnotationPresent(annotation))
+            {
+                return true;
+            }
+            cls = cls.getSuperclass();
+        }
+        return false;
+    }
+
 }
@@ -0,0 +1,80 @@
+package net.minecraftforge.common;
+
+import net.minecraft.world.ChunkCoordIntPair;
+
+/**
+ * Checks the sort keys of ChunkUnloadScheduler at the boundaries that matter: chunks on either side
+ * of a region edge, on either side of zero, where a region Z with the sign bit offset would sort the
+ * positive regions first, and at the ends of the int range, which must still decode to the same chunk.
+ *
+ * Run the main method with Forge and Minecraft on the class path, it throws on the first failed check.
+ */
+public class ChunkUnloadSchedulerTest
+{
+    private static final int[] EDGES = { Integer.MIN_VALUE, Integer.MIN_VALUE + 31, Integer.MIN_VALUE + 32, -33, -32, -31, -1, 0, 1, 31, 32, Integer.MAX_VALUE - 32, Integer.MAX_VALUE - 31, Integer.MAX_VALUE };
+
+    public static void main(String[] args)
+    {
+        roundTrip();
+        regionOrder();
+        inRegionOrder();
+        System.out.println("ChunkUnloadScheduler passed");
+    }
+
+    private static void roundTrip()
+    {
+        for (int x : EDGES)
+        {
+            for (int z : EDGES)
+            {
+                long key = ChunkCoordIntPair.chunkXZ2Int(x, z);
+                long decoded = ChunkUnloadScheduler.decode(ChunkUnloadScheduler.encode(key));
+                check(decoded == key, "chunk " + x + ", " + z + " decoded as " + (int)decoded + ", " + (int)(decoded >>> 32));
+            }
+        }
+    }
+
+    /**
+     * The region Z orders first, then the region X, both signed, whatever the position in the region.
+     */
+    private static void regionOrder()
+    {
+        checkBefore(0, -1, 0, 0);
+        checkBefore(31, -1, 0, 0);
+        checkBefore(0, -33, 0, -32);
+        checkBefore(0, Integer.MIN_VALUE, 0, Integer.MAX_VALUE);
+        checkBefore(Integer.MAX_VALUE, -1, Integer.MIN_VALUE, 0);
+
+        checkBefore(-1, 0, 0, 0);
+        checkBefore(-1, 31, 0, 0);
+        checkBefore(-33, 0, -32, 0);
+        checkBefore(Integer.MIN_VALUE, 0, Integer.MAX_VALUE, 0);
+        checkBefore(31, 0, 32, 0);
+    }
+
+    /**
+     * In a region, chunks are in the order they are stored in the region file, row by row of Z.
+     */
+    private static void inRegionOrder()
+    {
+        checkBefore(31, 0, 0, 1);
+        checkBefore(0, 0, 1, 0);
+        checkBefore(-1, -32, -32, -31);
+        checkBefore(-2, -1, -1, -1);
+    }
+
+    private static void checkBefore(int x1, int z1, int x2, int z2)
+    {
+        long first = ChunkUnloadScheduler.encode(ChunkCoordIntPair.chunkXZ2Int(x1, z1));
+        long second = ChunkUnloadScheduler.encode(ChunkCoordIntPair.chunkXZ2Int(x2, z2));
+        check(first < second, "chunk " + x1 + ", " + z1 + " does not sort before " + x2 + ", " + z2);
+    }
+
+    private static void check(boolean ok, String what)
+    {
+        if (!ok)
+        {
+            throw new AssertionError(what);
+        }
+    }
+}
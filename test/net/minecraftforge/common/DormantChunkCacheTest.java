@@ -0,0 +1,160 @@
+package net.minecraftforge.common;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+
+/**
+ * Checks the edge cases of DormantChunkCache: a fetch keeping a chunk from being evicted, putting
+ * a chunk again keeping its hits, a chunk larger than the byte bound being skipped without touching
+ * the chunk already cached at its coordinates, one put evicting several chunks to get under the byte
+ * bound, and the candidates offered to the eviction policy, including an invalid answer from it.
+ *
+ * Run the main method with Forge and Minecraft on the class path, it throws on the first failed check.
+ */
+public class DormantChunkCacheTest
+{
+    /**
+     * Remembers the candidates it was offered, and answers with a fixed index.
+     */
+    private static class RecordingPolicy implements DormantChunkCache.EvictionPolicy
+    {
+        private final int victim;
+        private final List<DormantChunkCache.CachedChunk> offered = new ArrayList<DormantChunkCache.CachedChunk>();
+
+        private RecordingPolicy(int victim)
+        {
+            this.victim = victim;
+        }
+
+        @Override
+        public int selectVictim(World world, List<DormantChunkCache.CachedChunk> candidates)
+        {
+            offered.clear();
+            offered.addAll(candidates);
+            return victim;
+        }
+    }
+
+    public static void main(String[] args)
+    {
+        fetchKeepsChunk();
+        putKeepsHits();
+        oversizedChunk();
+        byteBound();
+        candidates();
+        System.out.println("DormantChunkCache passed");
+    }
+
+    private static void fetchKeepsChunk()
+    {
+        DormantChunkCache cache = new DormantChunkCache(null, 3, 0, DormantChunkCache.LRU);
+        for (int x = 0; x < 3; x++)
+        {
+            cache.put(x, createChunk(x, 0));
+        }
+        check(cache.fetch(0) != null, "fetch of the oldest chunk");
+        cache.put(3, createChunk(3, 0));
+
+        check(cache.getSize() == 3, "size after the eviction is " + cache.getSize());
+        check(cache.fetch(1) == null, "least recently used chunk was not evicted");
+        check(cache.fetch(0) != null && cache.fetch(2) != null && cache.fetch(3) != null, "a chunk other than the least recently used one was evicted");
+        check(cache.getHitCount() == 4 && cache.getMissCount() == 1 && cache.getEvictionCount() == 1, "counted " + cache.getHitCount() + " hits, " + cache.getMissCount() + " misses and " + cache.getEvictionCount() + " evictions");
+    }
+
+    private static void putKeepsHits()
+    {
+        RecordingPolicy policy = new RecordingPolicy(0);
+        DormantChunkCache cache = new DormantChunkCache(null, 2, 0, policy);
+        Chunk small = createChunk(0, 0);
+        Chunk large = createChunk(0, 2);
+        cache.put(0, small);
+        cache.put(1, createChunk(1, 0));
+        cache.fetch(0);
+        cache.fetch(0);
+
+        // Putting the chunk again replaces it, keeps its hits, and makes it the most recently used
+        cache.put(0, large);
+        check(cache.getSize() == 2, "size after putting a chunk again is " + cache.getSize());
+        check(cache.getEstimatedBytes() == DormantChunkCache.estimateSize(large) + DormantChunkCache.estimateSize(small), "bytes after putting a chunk again are " + cache.getEstimatedBytes());
+
+        cache.put(2, createChunk(2, 0));
+        check(policy.offered.size() == 3 && policy.offered.get(0).getCoords() == 1, "chunk put again was not made the most recently used");
+        DormantChunkCache.CachedChunk cached = policy.offered.get(1);
+        check(cached.getChunk() == large && cached.getHits() == 2, "chunk put again has " + cached.getHits() + " hits");
+    }
+
+    private static void oversizedChunk()
+    {
+        Chunk small = createChunk(0, 0);
+        Chunk large = createChunk(0, 4);
+        DormantChunkCache cache = new DormantChunkCache(null, 0, DormantChunkCache.estimateSize(large) - 1, DormantChunkCache.LRU);
+        cache.put(0, small);
+        cache.put(0, large);
+
+        check(cache.getEvictionCount() == 0, "oversized chunk caused an eviction");
+        check(cache.getEstimatedBytes() == DormantChunkCache.estimateSize(small), "oversized chunk changed the bytes to " + cache.getEstimatedBytes());
+        check(cache.fetch(0) == small, "oversized chunk replaced the chunk cached at its coordinates");
+    }
+
+    private static void byteBound()
+    {
+        long smallBytes = DormantChunkCache.estimateSize(createChunk(0, 0));
+        Chunk large = createChunk(0, 1);
+        long largeBytes = DormantChunkCache.estimateSize(large);
+
+        // Room for the large chunk and one small one, filled with small chunks first
+        DormantChunkCache cache = new DormantChunkCache(null, 0, largeBytes + smallBytes, DormantChunkCache.LRU);
+        int count = (int)((largeBytes + smallBytes) / smallBytes);
+        check(count >= 3, "a chunk with one section is smaller than two empty chunks");
+        for (int x = 0; x < count; x++)
+        {
+            cache.put(x, createChunk(x, 0));
+        }
+        check(cache.getEvictionCount() == 0, "cache filled to its byte bound evicted a chunk");
+
+        // The one put evicts every small chunk but the newest
+        cache.put(count, large);
+        check(cache.getEvictionCount() == count - 1, "large chunk caused " + cache.getEvictionCount() + " evictions");
+        check(cache.getSize() == 2 && cache.getEstimatedBytes() == smallBytes + largeBytes, "cache holds " + cache.getSize() + " chunks and " + cache.getEstimatedBytes() + " bytes");
+        check(cache.fetch(count - 1) != null && cache.fetch(count) == large, "the newest chunks were evicted");
+    }
+
+    private static void candidates()
+    {
+        RecordingPolicy policy = new RecordingPolicy(-1);
+        DormantChunkCache cache = new DormantChunkCache(null, 20, 0, policy);
+        for (int x = 0; x < 21; x++)
+        {
+            cache.put(x, createChunk(x, 0));
+        }
+
+        check(policy.offered.size() == 16, policy.offered.size() + " candidates were offered");
+        for (int x = 0; x < policy.offered.size(); x++)
+        {
+            check(policy.offered.get(x).getCoords() == x, "candidate " + x + " is chunk " + policy.offered.get(x).getCoords());
+        }
+        check(cache.getSize() == 20 && cache.fetch(0) == null && cache.fetch(1) != null, "an invalid victim did not evict the oldest chunk");
+    }
+
+    private static Chunk createChunk(int x, int sections)
+    {
+        Chunk chunk = new Chunk(null, x, 0);
+        for (int y = 0; y < sections; y++)
+        {
+            chunk.getBlockStorageArray()[y] = new ExtendedBlockStorage(y << 4, true);
+        }
+        return chunk;
+    }
+
+    private static void check(boolean ok, String what)
+    {
+        if (!ok)
+        {
+            throw new AssertionError(what);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package net.minecraftforge.common;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.minecraft.world.ChunkCoordIntPair;
+
+/**
+ * Checks the edge cases of ForgeChunkManager.ForcedChunkSet: removing the head and the middle of a probe
+ * run, a probe run that wraps from the last slot of the table to the first, an entry in its home slot
+ * at the start of the table after the last slot is freed, duplicate adds, removes of absent keys, and
+ * growing past the initial table.
+ *
+ * Run the main method with Forge and Minecraft on the class path, it throws on the first failed check.
+ */
+public class ForcedChunkSetTest
+{
+    private static final int SLOTS = 16;
+
+    public static void main(String[] args)
+    {
+        probeRun();
+        wrap();
+        homeSlotAfterWrap();
+        duplicates();
+        growth();
+        System.out.println("ForcedChunkSet passed");
+    }
+
+    /**
+     * Three keys sharing a home slot and one key homed on the slot after it, so removing the head of
+     * the run shifts all of them back, and removing from the middle shifts only the ones after it.
+     */
+    private static void probeRun()
+    {
+        int home = 4;
+        List<Long> run = findKeys(home, 3);
+        long next = findKeys(home + 1, 1).get(0);
+
+        ForgeChunkManager.ForcedChunkSet set = new ForgeChunkManager.ForcedChunkSet();
+        addAll(set, run);
+        check(set.add(next), "add of the key after the run");
+
+        check(set.remove(run.get(0)), "remove of the head of the run");
+        check(!set.contains(run.get(0)), "removed head is still contained");
+        check(set.contains(run.get(1)) && set.contains(run.get(2)) && set.contains(next), "run lost a key when its head was removed");
+
+        check(set.remove(run.get(1)), "remove of the middle of the run");
+        check(set.contains(run.get(2)) && set.contains(next), "run lost a key when its middle was removed");
+        check(set.size() == 2, "size after the removes is " + set.size());
+
+        check(set.remove(next) && set.remove(run.get(2)), "remove of the rest of the run");
+        check(set.size() == 0, "size after removing everything is " + set.size());
+    }
+
+    /**
+     * Three keys homed on the last slot fill it and wrap into the first two, followed by a key homed on
+     * the first slot, which is pushed to the third. Removing the key in the last slot shifts them all
+     * back across the end of the table.
+     */
+    private static void wrap()
+    {
+        List<Long> run = findKeys(SLOTS - 1, 3);
+        long first = findKeys(0, 1).get(0);
+
+        ForgeChunkManager.ForcedChunkSet set = new ForgeChunkManager.ForcedChunkSet();
+        addAll(set, run);
+        check(set.add(first), "add of the key homed on the first slot");
+
+        check(set.remove(run.get(0)), "remove of the key in the last slot");
+        check(set.contains(run.get(1)) && set.contains(run.get(2)) && set.contains(first), "wrapped run lost a key");
+
+        check(set.remove(run.get(1)), "remove of a wrapped key");
+        check(set.contains(run.get(2)) && set.contains(first), "wrapped run lost a key after the second remove");
+        check(!set.remove(run.get(1)), "second remove of the same key");
+    }
+
+    /**
+     * A key in its home slot at the start of the table must stay there when the last slot is freed,
+     * as shifting it back would put it before its home slot.
+     */
+    private static void homeSlotAfterWrap()
+    {
+        long last = findKeys(SLOTS - 1, 1).get(0);
+        List<Long> first = findKeys(0, 2);
+
+        ForgeChunkManager.ForcedChunkSet set = new ForgeChunkManager.ForcedChunkSet();
+        check(set.add(first.get(0)) && set.add(last), "add of the keys");
+        check(set.remove(last), "remove of the key in the last slot");
+        check(set.contains(first.get(0)), "key in its home slot was lost when the last slot was freed");
+
+        // A second key homed on the first slot must still find the first key ahead of it
+        check(set.add(first.get(1)), "add of a second key homed on the first slot");
+        check(set.remove(first.get(0)) && set.contains(first.get(1)), "second key was lost when the first was removed");
+    }
+
+    private static void duplicates()
+    {
+        List<Long> run = findKeys(7, 3);
+        ForgeChunkManager.ForcedChunkSet set = new ForgeChunkManager.ForcedChunkSet();
+        check(set.add(run.get(0)) && set.add(run.get(1)), "add of the keys");
+        check(!set.add(run.get(1)), "duplicate add of a key that is not at the head of its run");
+        check(!set.remove(run.get(2)), "remove of an absent key homed on a used slot");
+        check(!set.contains(run.get(2)), "absent key homed on a used slot is contained");
+        check(set.size() == 2, "size after the duplicates is " + set.size());
+    }
+
+    /**
+     * A square of chunks around the origin grows the table several times, then every other chunk is
+     * removed, the way forced chunks are added and released.
+     */
+    private static void growth()
+    {
+        ForgeChunkManager.ForcedChunkSet set = new ForgeChunkManager.ForcedChunkSet();
+        for (int x = -20; x < 20; x++)
+        {
+            for (int z = -20; z < 20; z++)
+            {
+                check(set.add(ChunkCoordIntPair.chunkXZ2Int(x, z)), "add of " + x + ", " + z);
+            }
+        }
+        check(set.size() == 1600, "size after growing is " + set.size());
+        for (int x = -20; x < 20; x++)
+        {
+            for (int z = -20; z < 20; z++)
+            {
+                if (((x + z) & 1) == 0)
+                {
+                    check(set.remove(ChunkCoordIntPair.chunkXZ2Int(x, z)), "remove of " + x + ", " + z);
+                }
+            }
+        }
+        for (int x = -20; x < 20; x++)
+        {
+            for (int z = -20; z < 20; z++)
+            {
+                check(set.contains(ChunkCoordIntPair.chunkXZ2Int(x, z)) == (((x + z) & 1) != 0), "contains of " + x + ", " + z);
+            }
+        }
+        check(set.size() == 800, "size after removing half is " + set.size());
+    }
+
+    /**
+     * @return Chunk keys whose home slot in a new set is the given slot
+     */
+    private static List<Long> findKeys(int slot, int count)
+    {
+        List<Long> ret = new ArrayList<Long>();
+        for (int x = 0; ret.size() < count; x++)
+        {
+            long key = ChunkCoordIntPair.chunkXZ2Int(x, 0);
+            if ((ForgeChunkManager.ForcedChunkSet.hash(key) & (SLOTS - 1)) == slot)
+            {
+                ret.add(key);
+            }
+        }
+        return ret;
+    }
+
+    private static void addAll(ForgeChunkManager.ForcedChunkSet set, List<Long> keys)
+    {
+        for (Long key : keys)
+        {
+            check(set.add(key), "add of " + key);
+        }
+    }
+
+    private static void check(boolean ok, String what)
+    {
+        if (!ok)
+        {
+            throw new AssertionError(what);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package net.minecraftforge.oredict;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import net.minecraft.item.ItemStack;
+
+/**
+ * Checks the edge cases of IngredientMatcher: stacks with an exact and a wildcard damage, an ore list
+ * holding both an exact and a wildcard stack of the same item, an empty ore list, and an ore list that
+ * grows or shrinks after it was compiled. An OreList that is changed without changing its size, by a
+ * remove and an add or by a set, is compiled again as well, and isCompiledFrom notices a replaced input.
+ *
+ * Run the main method with Forge and Minecraft on the class path, it throws on the first failed check.
+ */
+public class IngredientMatcherTest
+{
+    public static void main(String[] args)
+    {
+        stacks();
+        oreList();
+        emptyOreList();
+        changedOreList();
+        sameSizeChanges();
+        replacedInputs();
+        System.out.println("IngredientMatcher passed");
+    }
+
+    private static void stacks()
+    {
+        IngredientMatcher exact = new IngredientMatcher(new ItemStack(5, 1, 2));
+        check(exact.matches(new ItemStack(5, 1, 2)), "exact stack does not match itself");
+        check(!exact.matches(new ItemStack(5, 1, 3)), "exact stack matches another damage");
+        check(!exact.matches(new ItemStack(6, 1, 2)), "exact stack matches another item");
+        check(!exact.matches(null), "exact stack matches an empty slot");
+
+        IngredientMatcher wildcard = new IngredientMatcher(new ItemStack(5, 1, -1));
+        check(wildcard.matches(new ItemStack(5, 1, 0)) && wildcard.matches(new ItemStack(5, 1, 15)), "wildcard stack does not match every damage");
+        check(!wildcard.matches(new ItemStack(6, 1, 0)), "wildcard stack matches another item");
+    }
+
+    private static void oreList()
+    {
+        List<ItemStack> ores = new ArrayList<ItemStack>(Arrays.asList(new ItemStack(7, 1, 1), new ItemStack(3, 1, -1), new ItemStack(7, 1, 4)));
+        IngredientMatcher matcher = new IngredientMatcher(ores);
+        check(matcher.matches(new ItemStack(7, 1, 1)) && matcher.matches(new ItemStack(7, 1, 4)), "ore list does not match its exact stacks");
+        check(!matcher.matches(new ItemStack(7, 1, 2)), "ore list matches a damage between its exact stacks");
+        check(matcher.matches(new ItemStack(3, 1, 0)) && matcher.matches(new ItemStack(3, 1, 9)), "ore list does not match its wildcard stack");
+        check(!matcher.matches(new ItemStack(4, 1, 1)), "ore list matches an item it does not hold");
+        check(!matcher.matches(null), "ore list matches an empty slot");
+
+        // An exact and a wildcard stack of the same item
+        ores.add(new ItemStack(7, 1, -1));
+        check(matcher.matches(new ItemStack(7, 1, 2)), "ore list does not match the damages of a wildcard added beside exact stacks");
+    }
+
+    private static void emptyOreList()
+    {
+        IngredientMatcher matcher = new IngredientMatcher(new ArrayList<ItemStack>());
+        check(!matcher.matches(new ItemStack(0, 1, 0)) && !matcher.matches(new ItemStack(1, 1, -1)), "empty ore list matches a stack");
+    }
+
+    private static void changedOreList()
+    {
+        List<ItemStack> ores = new ArrayList<ItemStack>();
+        ores.add(new ItemStack(1, 1, 0));
+        IngredientMatcher matcher = new IngredientMatcher(ores);
+        check(!matcher.matches(new ItemStack(2, 1, 0)), "ore list matches an item before it is added");
+
+        ores.add(new ItemStack(2, 1, 0));
+        check(matcher.matches(new ItemStack(2, 1, 0)), "ore list does not match an item added after it was compiled");
+
+        ores.remove(0);
+        check(!matcher.matches(new ItemStack(1, 1, 0)), "ore list matches an item removed after it was compiled");
+    }
+
+    /**
+     * Changes that keep the size of the list, which only an OreList counts.
+     */
+    private static void sameSizeChanges()
+    {
+        List<ItemStack> ores = new OreDictionary.OreList();
+        ores.add(new ItemStack(1, 1, 0));
+        IngredientMatcher matcher = new IngredientMatcher(ores);
+        check(matcher.matches(new ItemStack(1, 1, 0)), "OreList does not match its stack");
+
+        ores.remove(0);
+        ores.add(new ItemStack(2, 1, 0));
+        check(!matcher.matches(new ItemStack(1, 1, 0)) && matcher.matches(new ItemStack(2, 1, 0)), "OreList was not compiled again after a remove and an add");
+
+        ores.set(0, new ItemStack(3, 1, -1));
+        check(!matcher.matches(new ItemStack(2, 1, 0)) && matcher.matches(new ItemStack(3, 1, 5)), "OreList was not compiled again after a set");
+    }
+
+    private static void replacedInputs()
+    {
+        Object[] inputs = new Object[] { new ItemStack(1, 1, 0), null, new ArrayList<ItemStack>() };
+        IngredientMatcher[] matchers = IngredientMatcher.compile(inputs);
+        check(matchers[1] == null, "empty input has a matcher");
+        check(IngredientMatcher.isCompiledFrom(matchers, inputs), "matchers are not compiled from their own inputs");
+        check(IngredientMatcher.isCompiledFrom(matchers, Arrays.asList(inputs)), "matchers are not compiled from their own input list");
+        check(!IngredientMatcher.isCompiledFrom(matchers, Arrays.copyOf(inputs, 2)), "matchers are compiled from fewer inputs");
+
+        // An equal stack in place of the input is still a replaced input
+        List<Object> inputList = new ArrayList<Object>(Arrays.asList(inputs));
+        inputs[0] = new ItemStack(1, 1, 0);
+        inputList.set(0, inputs[0]);
+        check(!IngredientMatcher.isCompiledFrom(matchers, inputs), "matchers are compiled from a replaced input");
+        check(!IngredientMatcher.isCompiledFrom(matchers, inputList), "matchers are compiled from a replaced input in a list");
+
+        // So is an input in the place of an empty one
+        inputs = new Object[] { null, new ItemStack(1, 1, 0) };
+        check(!IngredientMatcher.isCompiledFrom(IngredientMatcher.compile(new Object[2]), inputs), "empty matchers are compiled from a filled input");
+    }
+
+    private static void check(boolean ok, String what)
+    {
+        if (!ok)
+        {
+            throw new AssertionError(what);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package net.minecraftforge.oredict;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.inventory.Container;
+import net.minecraft.inventory.InventoryCrafting;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.crafting.IRecipe;
+import net.minecraft.item.crafting.ShapedRecipes;
+import net.minecraft.item.crafting.ShapelessRecipes;
+
+/**
+ * Checks the edge cases of RecipeIndex.findMatchingRecipe: two matching recipes indexed under
+ * different ingredients, and an unindexed subclass ahead of an indexed recipe, are found in list
+ * order. The remembered match of a grid gives way to a recipe added ahead of it or set in its place,
+ * and the index notices an ore registered after it was built. A stack added to an ore list directly,
+ * which the ore IDs of the stack do not know of, still finds the recipes of that ore, also when it is
+ * added after the index was built, or set in place of another stack so the size of the list is unchanged.
+ * Recipe inputs replaced in the live arrays and lists of the recipes, and a stack whose item ID is changed,
+ * are noticed as well.
+ *
+ * Each check uses its own item IDs and ore names, so they do not see each other's recipes.
+ * Run the main method with Forge and Minecraft on the class path, it throws on the first failed check.
+ */
+public class RecipeIndexTest
+{
+    private static class Crafting extends Container
+    {
+        @Override
+        public boolean canInteractWith(EntityPlayer player)
+        {
+            return true;
+        }
+    }
+
+    private static class UnindexedRecipe extends ShapedRecipes
+    {
+        private UnindexedRecipe(ItemStack input, ItemStack output)
+        {
+            super(1, 1, new ItemStack[] { input }, output);
+        }
+    }
+
+    public static void main(String[] args)
+    {
+        listOrder();
+        unindexedFirst();
+        lastMatch();
+        oreRegistration();
+        directOreList();
+        directOreListAfterIndex();
+        sameSizeOreList();
+        inputsChangedInPlace();
+        plainList();
+        System.out.println("RecipeIndex passed");
+    }
+
+    /**
+     * The ore recipe is indexed under its ore and the shaped recipe under its item, the grid finds both.
+     */
+    private static void listOrder()
+    {
+        OreDictionary.registerOre("recipeIndexOrder", new ItemStack(4001, 1, 0));
+        IRecipe ore = new ShapelessOreRecipe(createOutput(), "recipeIndexOrder");
+        IRecipe shaped = createShaped(new ItemStack(4001, 1, 0));
+
+        check(find(createList(ore, shaped), new ItemStack(4001, 1, 0)) == ore, "ore recipe ahead of a shaped recipe was not found first");
+        check(find(createList(shaped, ore), new ItemStack(4001, 1, 0)) == shaped, "shaped recipe ahead of an ore recipe was not found first");
+    }
+
+    private static void unindexedFirst()
+    {
+        IRecipe unindexed = new UnindexedRecipe(new ItemStack(4010, 1, 0), createOutput());
+        IRecipe shaped = createShaped(new ItemStack(4010, 1, 0));
+        check(find(createList(unindexed, shaped), new ItemStack(4010, 1, 0)) == unindexed, "unindexed recipe ahead of an indexed one was not found first");
+    }
+
+    private static void lastMatch()
+    {
+        IRecipe shaped = createShaped(new ItemStack(4020, 1, 0));
+        RecipeIndex.RecipeList list = createList(createShaped(new ItemStack(4021, 1, 0)), shaped);
+        InventoryCrafting grid = createGrid(new ItemStack(4020, 1, 0));
+        check(RecipeIndex.findMatchingRecipe(list, grid, null) == shaped, "first search did not find the recipe");
+        check(RecipeIndex.findMatchingRecipe(list, grid, null) == shaped, "remembered match was not found again");
+
+        IRecipe added = createShaped(new ItemStack(4020, 1, -1));
+        list.add(0, added);
+        check(RecipeIndex.findMatchingRecipe(list, grid, null) == added, "recipe added ahead of the remembered match was not found");
+
+        IRecipe replaced = createShaped(new ItemStack(4022, 1, 0));
+        list.set(0, replaced);
+        check(RecipeIndex.findMatchingRecipe(list, grid, null) == shaped, "recipe replaced by set was still found");
+        check(RecipeIndex.findMatchingRecipe(list, createGrid(new ItemStack(4022, 1, 0)), null) == replaced, "recipe set in place of another was not found");
+    }
+
+    private static void oreRegistration()
+    {
+        OreDictionary.registerOre("recipeIndexRegister", new ItemStack(4030, 1, 0));
+        IRecipe ore = new ShapedOreRecipe(createOutput(), "x", 'x', "recipeIndexRegister");
+        RecipeIndex.RecipeList list = createList(ore);
+        check(find(list, new ItemStack(4031, 1, 0)) == null, "ore recipe matched a stack that is not an ore");
+
+        OreDictionary.registerOre("recipeIndexRegister", new ItemStack(4031, 1, 0));
+        check(find(list, new ItemStack(4031, 1, 0)) == ore, "ore recipe was not found for an ore registered after the index was built");
+    }
+
+    private static void directOreList()
+    {
+        OreDictionary.registerOre("recipeIndexDirect", new ItemStack(4040, 1, 0));
+        OreDictionary.getOres("recipeIndexDirect").add(new ItemStack(4041, 1, 0));
+        IRecipe ore = new ShapelessOreRecipe(createOutput(), "recipeIndexDirect");
+        check(find(createList(ore), new ItemStack(4041, 1, 0)) == ore, "ore recipe was not found for a stack added to the ore list directly");
+    }
+
+    private static void directOreListAfterIndex()
+    {
+        OreDictionary.registerOre("recipeIndexDirectAfter", new ItemStack(4060, 1, 0));
+        IRecipe ore = new ShapelessOreRecipe(createOutput(), "recipeIndexDirectAfter");
+        RecipeIndex.RecipeList list = createList(ore);
+        check(find(list, new ItemStack(4060, 1, 0)) == ore, "ore recipe was not found for its registered stack");
+
+        OreDictionary.getOres("recipeIndexDirectAfter").add(new ItemStack(4061, 1, 0));
+        check(find(list, new ItemStack(4061, 1, 0)) == ore, "ore recipe was not found for a stack added to the ore list after the index was built");
+    }
+
+    private static void sameSizeOreList()
+    {
+        OreDictionary.registerOre("recipeIndexSameSize", new ItemStack(4070, 1, 0));
+        IRecipe ore = new ShapedOreRecipe(createOutput(), "x", 'x', "recipeIndexSameSize");
+        RecipeIndex.RecipeList list = createList(ore);
+        check(find(list, new ItemStack(4070, 1, 0)) == ore, "ore recipe was not found for its registered stack");
+
+        OreDictionary.getOres("recipeIndexSameSize").set(0, new ItemStack(4071, 1, 0));
+        check(find(list, new ItemStack(4071, 1, 0)) == ore, "ore recipe was not found for a stack set in the ore list after the index was built");
+    }
+
+    private static void inputsChangedInPlace()
+    {
+        ShapedRecipes shaped = (ShapedRecipes)createShaped(new ItemStack(4080, 1, 0));
+        List<ItemStack> items = new ArrayList<ItemStack>(Arrays.asList(new ItemStack(4082, 1, 0)));
+        ShapelessRecipes shapeless = new ShapelessRecipes(createOutput(), items);
+        OreDictionary.registerOre("recipeIndexInPlace", new ItemStack(4084, 1, 0));
+        ShapedOreRecipe ore = new ShapedOreRecipe(createOutput(), "x", 'x', "recipeIndexInPlace");
+        ItemStack stack = new ItemStack(4086, 1, 0);
+        IRecipe changed = createShaped(stack);
+        RecipeIndex.RecipeList list = createList(shaped, shapeless, ore, changed);
+        check(find(list, new ItemStack(4080, 1, 0)) == shaped, "shaped recipe was not found for its stack");
+
+        shaped.recipeItems[0] = new ItemStack(4081, 1, 0);
+        check(find(list, new ItemStack(4081, 1, 0)) == shaped, "shaped recipe was not found after its input was replaced");
+
+        items.set(0, new ItemStack(4083, 1, 0));
+        check(find(list, new ItemStack(4083, 1, 0)) == shapeless, "shapeless recipe was not found after its input was replaced");
+
+        ore.getInput()[0] = new ItemStack(4085, 1, 0);
+        check(find(list, new ItemStack(4085, 1, 0)) == ore, "ore recipe was not found after its ore input was replaced by a stack");
+
+        stack.itemID = 4087;
+        check(find(list, new ItemStack(4087, 1, 0)) == changed, "recipe was not found after the item ID of its input was changed");
+    }
+
+    private static void plainList()
+    {
+        IRecipe shaped = createShaped(new ItemStack(4050, 1, 0));
+        List<IRecipe> list = new ArrayList<IRecipe>(Arrays.asList(createShaped(new ItemStack(4051, 1, 0)), shaped));
+        check(RecipeIndex.findMatchingRecipe(list, createGrid(new ItemStack(4050, 1, 0)), null) == shaped, "recipe in a plain list was not found");
+    }
+
+    private static IRecipe find(RecipeIndex.RecipeList list, ItemStack stack)
+    {
+        return RecipeIndex.findMatchingRecipe(list, createGrid(stack), null);
+    }
+
+    private static RecipeIndex.RecipeList createList(IRecipe... recipes)
+    {
+        RecipeIndex.RecipeList list = new RecipeIndex.RecipeList();
+        list.addAll(Arrays.asList(recipes));
+        return list;
+    }
+
+    private static InventoryCrafting createGrid(ItemStack stack)
+    {
+        InventoryCrafting grid = new InventoryCrafting(new Crafting(), 3, 3);
+        grid.setInventorySlotContents(4, stack);
+        return grid;
+    }
+
+    private static IRecipe createShaped(ItemStack input)
+    {
+        return new ShapedRecipes(1, 1, new ItemStack[] { input }, createOutput());
+    }
+
+    private static ItemStack createOutput()
+    {
+        return new ItemStack(4999, 1, 0);
+    }
+
+    private static void check(boolean ok, String what)
+    {
+        if (!ok)
+        {
+            throw new AssertionError(what);
+        }
+    }
+}